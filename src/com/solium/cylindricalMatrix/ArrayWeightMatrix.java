@@ -0,0 +1,37 @@
+package com.solium.cylindricalMatrix;
+
+/**
+ * Weight matrix kept in an int array per row, as read from a text input file
+ */
+
+public class ArrayWeightMatrix implements WeightMatrix {
+
+	private final int[][] weights;
+	private final int rows;
+	private final int cols;
+
+	/**
+	 * @param weights weights of each row, all the rows have the same number of columns
+	 */
+	public ArrayWeightMatrix(int[][] weights) {
+		this.weights = weights;
+		this.rows = weights.length;
+		this.cols = rows == 0 ? 0 : weights[0].length;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return cols;
+	}
+
+	public int get(int row, int col) {
+		return weights[row][col];
+	}
+
+	public int get(int index) {
+		return weights[index / cols][index % cols];
+	}
+}
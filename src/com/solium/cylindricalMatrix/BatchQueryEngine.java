@@ -0,0 +1,145 @@
+package com.solium.cylindricalMatrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers many source/destination queries on the same matrix. The queries are grouped by source, and one
+ * shortest path tree is grown from each distinct source until all the destinations of its group are solved,
+ * instead of one search per query. The answers are given in the order of the queries: an answer found before
+ * the answers of the queries in front of it is kept until they are found
+ */
+
+public class BatchQueryEngine {
+
+	/**
+	 * Receives the answers of a batch, in the order of the queries
+	 */
+	public interface AnswerListener {
+
+		/**
+		 * @param query position of the query in the batch
+		 * @param path shortest path of the query
+		 */
+		void answer(int query, ShortestPath path);
+	}
+
+	private final GridGraph graph;
+	private int treesCount; //number of shortest path trees grown by the last batch
+
+	/**
+	 * @param graph graph of the matrix the queries are made on
+	 */
+	public BatchQueryEngine(GridGraph graph) {
+		this.graph = graph;
+	}
+
+	public int getTreesCount() {
+		return treesCount;
+	}
+
+	/**
+	 * @param queries each query is the zero based source row, source column, destination row and destination column
+	 * @return the shortest path of each query, in the order of the queries
+	 */
+	public List<ShortestPath> run(List<int[]> queries) {
+		final List<ShortestPath> answers = new ArrayList<ShortestPath>(queries.size());
+		run(queries, new AnswerListener() {
+			public void answer(int query, ShortestPath path) {
+				answers.add(path);
+			}
+		});
+		return answers;
+	}
+
+	/**
+	 * @param queries each query is the zero based source row, source column, destination row and destination column
+	 * @param listener receives the shortest path of each query, in the order of the queries
+	 */
+	public void run(List<int[]> queries, AnswerListener listener) {
+		// the groups are kept in the order of the first query of each source, so that the first answers
+		// can be given as soon as their tree is grown
+		Map<Integer, List<Integer>> groups = new LinkedHashMap<Integer, List<Integer>>();
+		for (int query = 0; query < queries.size(); query++) {
+			int[] cells = queries.get(query);
+			Integer source = Integer.valueOf(indexOf(cells[0], cells[1]));
+			List<Integer> group = groups.get(source);
+			if (group == null) {
+				group = new ArrayList<Integer>();
+				groups.put(source, group);
+			}
+			group.add(Integer.valueOf(query));
+		}
+		treesCount = 0;
+		ShortestPath[] answers = new ShortestPath[queries.size()];
+		int nextAnswer = 0;
+		SolverWorkspace workspace = graph.takeWorkspace();
+		try {
+			for (Map.Entry<Integer, List<Integer>> group : groups.entrySet()) {
+				int source = group.getKey().intValue();
+				int[] cells = queries.get(group.getValue().get(0).intValue());
+				int sourceWeight = graph.getWeight(cells[0], cells[1]);
+				graph.findShortestPathTree(source, destinations(queries, group.getValue()), workspace);
+				treesCount++;
+				for (Integer query : group.getValue()) {
+					cells = queries.get(query.intValue());
+					answers[query.intValue()] = answer(indexOf(cells[2], cells[3]), sourceWeight, workspace);
+				}
+				workspace.reset();
+				while (nextAnswer < answers.length && answers[nextAnswer] != null) {
+					listener.answer(nextAnswer, answers[nextAnswer]);
+					// the listener has the answer, the batch does not need to keep it
+					answers[nextAnswer++] = null;
+				}
+			}
+		}
+		finally {
+			graph.giveBackWorkspace(workspace);
+		}
+	}
+
+	/**
+	 * @param queries
+	 * @param group positions of the queries with the same source
+	 * @return the indices of the destinations of the group, sorted and without duplicates
+	 */
+	private int[] destinations(List<int[]> queries, List<Integer> group) {
+		int[] destinations = new int[group.size()];
+		for (int i = 0; i < destinations.length; i++) {
+			int[] cells = queries.get(group.get(i).intValue());
+			destinations[i] = indexOf(cells[2], cells[3]);
+		}
+		Arrays.sort(destinations);
+		int count = 0;
+		for (int i = 0; i < destinations.length; i++) {
+			if (count == 0 || destinations[i] != destinations[count - 1])
+				destinations[count++] = destinations[i];
+		}
+		int[] distinct = new int[count];
+		System.arraycopy(destinations, 0, distinct, 0, count);
+		return distinct;
+	}
+
+	/**
+	 * @param destination index of the destination
+	 * @param sourceWeight weight of the source cell
+	 * @param workspace state of the shortest path tree grown from the source
+	 * @return the shortest path from the source of the tree to the destination
+	 */
+	private ShortestPath answer(int destination, int sourceWeight, SolverWorkspace workspace) {
+		int[] path = graph.pathTo(destination, workspace);
+		return graph.toShortestPath(path, workspace.getDistance(destination) + sourceWeight, workspace.getSolvedCount());
+	}
+
+	/**
+	 * @param row zero based row of a cell
+	 * @param col zero based column of a cell
+	 * @return the index of the node of the cell
+	 */
+	private int indexOf(int row, int col) {
+		return row * graph.getColumns() + col;
+	}
+}
@@ -0,0 +1,152 @@
+package com.solium.cylindricalMatrix;
+
+/**
+ * Finds the shortest path between one source and one destination of a graph by running Dijkstra forward from
+ * the source and backward (over the reversed edges) from the destination, and stops when the two searches meet.
+ *
+ * Distances follow the convention of Graph: the weight of an edge is paid when arriving at its destination, so the
+ * source weight is not part of the distance. The backward distance of a node is the weight of the path from the
+ * node to the destination, without the node's own weight.
+ *
+ * Once the searches have met, the minimum weight is known but not the path Dijkstra would give when several paths
+ * have that weight: Dijkstra keeps for each node the predecessor with the smallest index among the predecessors on
+ * a shortest path. So the forward search goes on until the destination is solved, the way Dijkstra would, except
+ * that it only follows the nodes that can still be on a shortest path, the ones whose distance from the source
+ * plus their distance to the destination (exact if the backward search has solved them, at least the top of the
+ * backward queue otherwise) is the minimum weight. These nodes are the paths of minimum weight and a few nodes
+ * at the frontier, so finishing costs little, and the path is the one Dijkstra finds.
+ */
+
+public class BidirectionalDijkstra {
+
+	private static final long UNREACHED = SolverWorkspace.UNREACHED;
+
+	private final Graph graph;
+	//the workspaces are kept between searches, the links are the predecessors forward and the successors backward
+	private IndexedMinHeap forwardHeap;
+	private IndexedMinHeap backwardHeap;
+	private SolverWorkspace forward;
+	private SolverWorkspace backward;
+	private long distance = UNREACHED;
+	private int settledNodesCount;
+
+	public BidirectionalDijkstra(Graph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * @return the distance from the source to the destination found by the last search, Long.MAX_VALUE if the
+	 * destination cannot be reached
+	 */
+	public long getDistance() {
+		return distance;
+	}
+
+	/**
+	 * @return the number of nodes settled by the last search, in both directions
+	 */
+	public int getSettledNodesCount() {
+		return settledNodesCount;
+	}
+
+	/**
+	 * @param source index of the source node
+	 * @param destination index of the destination node
+	 * @return the indices of the nodes of the shortest path from source to destination, null if there is no path
+	 */
+	public int[] search(int source, int destination) {
+		int nodesCount = graph.getNodeCount();
+		if (forward == null || forward.capacity() != nodesCount) {
+			forwardHeap = new IndexedMinHeap(nodesCount, graph.getMatrixColumns());
+			backwardHeap = new IndexedMinHeap(nodesCount, graph.getMatrixColumns());
+			forward = new SolverWorkspace(forwardHeap);
+			backward = new SolverWorkspace(backwardHeap);
+		}
+		forward.reset();
+		backward.reset();
+
+		settledNodesCount = 0;
+		distance = UNREACHED;
+		int meetingNode = -1;
+		forward.setDistance(source, 0, -1);
+		backward.setDistance(destination, 0, -1);
+		forwardHeap.push(source, 0);
+		backwardHeap.push(destination, 0);
+		if (source == destination) {
+			distance = 0;
+			meetingNode = source;
+		}
+
+		while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+			graph.checkCancelled();
+			long forwardTop = forwardHeap.getKey(forwardHeap.peek());
+			long backwardTop = backwardHeap.getKey(backwardHeap.peek());
+			// no path through an unsettled node can be shorter than the best meeting found so far
+			if (distance != UNREACHED && forwardTop + backwardTop >= distance)
+				break;
+			boolean forwardStep = forwardTop <= backwardTop;
+			SolverWorkspace workspace = forwardStep ? forward : backward;
+			SolverWorkspace other = forwardStep ? backward : forward;
+
+			int node = workspace.getQueue().poll();
+			workspace.setSolved(node);
+			settledNodesCount++;
+			int degree = forwardStep ? graph.getDegree(node) : graph.getReverseDegree(node);
+			for (int slot = 0; slot < degree; slot++) {
+				int neighbor = forwardStep ? graph.getNeighbor(node, slot) : graph.getReverseNeighbor(node, slot);
+				if (neighbor == -1 || workspace.isSolved(neighbor))
+					continue;
+				int weight = forwardStep ? graph.getNeighborDistance(node, slot) : graph.getReverseNeighborDistance(node, slot);
+				long neighborDistance = workspace.getDistance(node) + weight;
+				long currentDistance = workspace.getDistance(neighbor);
+				if (neighborDistance < currentDistance || (neighborDistance == currentDistance && node < workspace.getPredecessor(neighbor))) {
+					workspace.setDistance(neighbor, neighborDistance, node);
+					workspace.getQueue().push(neighbor, neighborDistance);
+				}
+				if (other.getDistance(neighbor) != UNREACHED) {
+					long meetingDistance = workspace.getDistance(neighbor) + other.getDistance(neighbor);
+					if (meetingDistance < distance || (meetingDistance == distance && (meetingNode == -1 || neighbor < meetingNode))) {
+						distance = meetingDistance;
+						meetingNode = neighbor;
+					}
+				}
+			}
+		}
+		if (meetingNode == -1)
+			return null;
+		finishForward(destination, backwardHeap.isEmpty() ? UNREACHED : backwardHeap.getKey(backwardHeap.peek()));
+		return graph.pathTo(destination, forward);
+	}
+
+	/**
+	 * Goes on with the forward search until the destination is solved, without following the nodes that cannot be on
+	 * a path of the minimum weight found, so that each node of the paths of minimum weight gets the predecessor
+	 * Dijkstra would give it
+	 * @param destination index of the destination node
+	 * @param backwardTop smallest distance to the destination of the nodes the backward search has not solved,
+	 * UNREACHED if the backward search has solved every node it can reach
+	 */
+	private void finishForward(int destination, long backwardTop) {
+		while (!forward.isSolved(destination) && !forwardHeap.isEmpty()) {
+			graph.checkCancelled();
+			int node = forwardHeap.poll();
+			forward.setSolved(node);
+			settledNodesCount++;
+			long toDestination = backward.isSolved(node) ? backward.getDistance(node) : backwardTop;
+			if (node == destination || toDestination == UNREACHED || forward.getDistance(node) + toDestination > distance)
+				continue;
+			int degree = graph.getDegree(node);
+			for (int slot = 0; slot < degree; slot++) {
+				int neighbor = graph.getNeighbor(node, slot);
+				if (neighbor == -1 || forward.isSolved(neighbor))
+					continue;
+				long neighborDistance = forward.getDistance(node) + graph.getNeighborDistance(node, slot);
+				long currentDistance = forward.getDistance(neighbor);
+				if (neighborDistance < currentDistance || (neighborDistance == currentDistance && node < forward.getPredecessor(neighbor))) {
+					forward.setDistance(neighbor, neighborDistance, node);
+					forwardHeap.push(neighbor, neighborDistance);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package com.solium.cylindricalMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Bucket queue (Dial's algorithm) of node indices for graphs whose edge weights are small non-negative integers.
+ * Dijkstra never pushes a key greater than the smallest key in the queue plus the maximum edge weight, so
+ * span+1 buckets used as a circular array are enough, and a push or a poll costs O(1) instead of O(log n).
+ *
+ * The nodes of a bucket are kept in an intrusive doubly linked list, so that decreasing a key moves the node
+ * to another bucket without searching for it. When some edges weigh 0 (or with A*), a node can be pushed with the
+ * key being polled, and the nodes with the same key must come out in the order of their index to give the path of
+ * IndexedMinHeap: the bucket being polled is then emptied into a heap ordered by index. Without such edges the
+ * order inside a bucket does not change the path, and the nodes come out in the order of the list.
+ */
+
+public class BucketQueue implements NodeQueue {
+
+	private static final int NONE = -1;
+	private static final int CURRENT = -2; //the node is in the heap of the bucket being polled
+
+	private final int[] heads; //first node of each bucket, NONE if the bucket is empty
+	private final int[] next;
+	private final int[] previous;
+	private final int[] bucket; //bucket of each node, NONE if the node is not in the queue
+	private final long[] key;
+	private final IndexedMinHeap current; //nodes of the bucket being polled by index, null if the order does not matter
+	private long currentKey; //no node in the queue has a smaller key
+	private int size;
+
+	/**
+	 * @param capacity number of nodes, node indices go from 0 to capacity-1
+	 * @param span largest difference between the key pushed and the smallest key in the queue
+	 * @param ordered true if a node can be pushed with the smallest key in the queue (edges of weight 0),
+	 * so that the nodes with the same key come out in the order of their index
+	 */
+	public BucketQueue(int capacity, int span, boolean ordered) {
+		this(capacity, span, ordered, 0);
+	}
+
+	/**
+	 * @param capacity number of nodes, node indices go from 0 to capacity-1
+	 * @param span largest difference between the key pushed and the smallest key in the queue
+	 * @param ordered true if a node can be pushed with the smallest key in the queue (edges of weight 0)
+	 * @param columns number of columns of the matrix the nodes with the same key of an ordered queue come out by,
+	 * as in IndexedMinHeap, 0 to take them in the order of their index
+	 */
+	public BucketQueue(int capacity, int span, boolean ordered, int columns) {
+		this.heads = new int[span + 1];
+		this.next = new int[capacity];
+		this.previous = new int[capacity];
+		this.bucket = new int[capacity];
+		this.key = new long[capacity];
+		this.current = ordered ? new IndexedMinHeap(capacity, columns) : null;
+		Arrays.fill(heads, NONE);
+		Arrays.fill(bucket, NONE);
+	}
+
+	public int capacity() {
+		return bucket.length;
+	}
+
+	/**
+	 * @param span
+	 * @param ordered
+	 * @param columns
+	 * @return true if the queue can be used in place of a new BucketQueue(capacity(), span, ordered, columns)
+	 */
+	boolean fits(int span, boolean ordered, int columns) {
+		return heads.length > span && (!ordered || (current != null && current.columns() == columns));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int node) {
+		return bucket[node] != NONE;
+	}
+
+	/**
+	 * Inserts a node, or decreases its key if it is already in the queue with a greater key. The key must not be
+	 * smaller than the smallest key in the queue, nor greater than it plus the span
+	 * @param node
+	 * @param distance
+	 */
+	public void push(int node, long distance) {
+		if (bucket[node] != NONE) {
+			if (distance >= key[node])
+				return;
+			unlink(node);
+			size--;
+		}
+		if (size == 0 || distance < currentKey)
+			currentKey = distance;
+		key[node] = distance;
+		size++;
+		if (current != null && distance == currentKey && !current.isEmpty()) {
+			bucket[node] = CURRENT;
+			current.push(node, distance);
+		}
+		else
+			link(node, (int) (distance % heads.length));
+	}
+
+	/**
+	 * Removes the node with the smallest key (and the smallest index in case of a tie if the queue is ordered)
+	 * @return the removed node
+	 */
+	public int poll() {
+		int node;
+		if (current != null) {
+			if (current.isEmpty()) {
+				int i = advance();
+				for (int n = heads[i]; n != NONE; n = next[n]) {
+					bucket[n] = CURRENT;
+					current.push(n, currentKey);
+				}
+				heads[i] = NONE;
+			}
+			node = current.poll();
+		}
+		else {
+			node = heads[advance()];
+			unlink(node);
+		}
+		bucket[node] = NONE;
+		size--;
+		return node;
+	}
+
+	/**
+	 * Removes all the nodes, only the nodes still in the queue are reset
+	 */
+	public void clear() {
+		for (int i = 0; i < heads.length; i++) {
+			for (int n = heads[i]; n != NONE; n = next[n])
+				bucket[n] = NONE;
+			heads[i] = NONE;
+		}
+		if (current != null) {
+			while (!current.isEmpty())
+				bucket[current.poll()] = NONE;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Moves currentKey to the first key with a node in its bucket
+	 * @return the bucket of currentKey
+	 */
+	private int advance() {
+		int i = (int) (currentKey % heads.length);
+		while (heads[i] == NONE) {
+			currentKey++;
+			i = i + 1 == heads.length ? 0 : i + 1;
+		}
+		return i;
+	}
+
+	private void link(int node, int i) {
+		bucket[node] = i;
+		previous[node] = NONE;
+		next[node] = heads[i];
+		if (heads[i] != NONE)
+			previous[heads[i]] = node;
+		heads[i] = node;
+	}
+
+	private void unlink(int node) {
+		int i = bucket[node];
+		if (previous[node] == NONE)
+			heads[i] = next[node];
+		else
+			next[previous[node]] = next[node];
+		if (next[node] != NONE)
+			previous[next[node]] = previous[node];
+	}
+}
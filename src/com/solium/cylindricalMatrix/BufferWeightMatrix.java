@@ -0,0 +1,64 @@
+package com.solium.cylindricalMatrix;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Weight matrix read in place from a little endian buffer, for instance the payload of a binary matrix file mapped
+ * in memory. The weights are stored row by row, each one on 1 or 2 bytes (unsigned) or on 4 bytes (signed)
+ */
+
+public class BufferWeightMatrix implements WeightMatrix {
+
+	private final ByteBuffer buffer;
+	private final int rows;
+	private final int cols;
+	private final int width;
+
+	/**
+	 * @param buffer weights from position 0, the buffer is not changed
+	 * @param rows
+	 * @param cols
+	 * @param width number of bytes of a weight: 1, 2 or 4
+	 */
+	public BufferWeightMatrix(ByteBuffer buffer, int rows, int cols, int width) {
+		if (width != 1 && width != 2 && width != 4)
+			throw new IllegalArgumentException("The width of a weight must be 1, 2 or 4 bytes");
+		if ((long) rows * cols * width > buffer.capacity())
+			throw new IllegalArgumentException("The buffer is too small for the matrix");
+		this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		this.rows = rows;
+		this.cols = cols;
+		this.width = width;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return cols;
+	}
+
+	/**
+	 * @return the number of bytes of a weight
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	public int get(int row, int col) {
+		return get(row * cols + col);
+	}
+
+	public int get(int index) {
+		switch (width) {
+		case 1:
+			return buffer.get(index) & 0xff;
+		case 2:
+			return buffer.getShort(index << 1) & 0xffff;
+		default:
+			return buffer.getInt(index << 2);
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package com.solium.cylindricalMatrix;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Solves the Standard version without Dijkstra. Every step goes from column j to column j+1, so the matrix is
+ * a graph layered by column and the minimal weights can be found by sweeping the columns from west to east,
+ * keeping only the weights of the previous column and of the current column.
+ *
+ * The result is the one Graph gives for the standard setting: the source is the first row of minimum weight,
+ * the destination is the first row reached from that source with the minimum weight, and every cell of the path
+ * comes from its predecessor with the smallest row among the predecessors on a minimal path from that source.
+ * Along with the weight of each cell, the sweep keeps the first source row that reaches the cell with that weight,
+ * and a cell takes its predecessor among the ones of smallest weight and then of first source, which are the
+ * predecessors on a minimal path from the source of the path found.
+ *
+ * Only the weights of two columns are kept, with the predecessors, one byte per cell. The predecessors are in an
+ * array on the heap, which the garbage collector frees with the solver, unless the matrix has more cells than an
+ * array can hold: they are then kept outside the heap (see OffHeapArray), so that a matrix of more than 2^31 cells
+ * can be solved without filling the heap. The weights of the paths are added up as longs
+ */
+
+public class ColumnSweepSolver {
+
+	private static final int MAXIMUM_ARRAY_LENGTH = Integer.MAX_VALUE - 8; //the largest array every JVM can allocate
+
+	private final WeightMatrix weightMatrix;
+	private final int rows;
+	private final int cols;
+
+	private long minimumWeight = Long.MAX_VALUE;
+	private int[] pathRows;
+	private volatile boolean cancelled = false;
+	private boolean timed = false;
+	private long deadline; //System.nanoTime() at which solve stops
+	private long lowerBound = Long.MIN_VALUE; //lower bound of the minimum weight when solve has been stopped by the deadline
+	private byte[] predecessors; //row offset of the predecessor of each cell, by column and then by row
+	private OffHeapArray offHeapPredecessors; //the same outside the heap, for a matrix too large for an array
+	private int[] fallbackRows; //rows of a path found without sweeping, improved if the deadline stops solve
+
+	public ColumnSweepSolver(int[][] weightMatrix) {
+		this(new ArrayWeightMatrix(weightMatrix));
+	}
+
+	public ColumnSweepSolver(WeightMatrix weightMatrix) {
+		this.weightMatrix = weightMatrix;
+		this.rows = weightMatrix.getRows();
+		this.cols = weightMatrix.getColumns();
+	}
+
+	public long getMinimumWeight() {
+		return minimumWeight;
+	}
+
+	/**
+	 * @return the zero based row of the path in each column, null if solve has not found a path. If the deadline
+	 * has stopped solve, the rows of the fallback path improved by the columns swept, if one has been given
+	 */
+	public int[] getPathRows() {
+		return pathRows;
+	}
+
+	/**
+	 * Stops the sweep running, from any thread: solve throws a CancellationException at the next column
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * @param deadline System.nanoTime() at which solve stops, checked at each column
+	 */
+	public void setDeadline(long deadline) {
+		this.timed = true;
+		this.deadline = deadline;
+	}
+	
+	/**
+	 * @param fallbackRows zero based row in each column of a path from the first column to the last column. If the
+	 * deadline stops solve, the path is kept from the first column not swept yet and joined to the lightest path
+	 * from the first column to there, which never makes it heavier: getPathRows and getMinimumWeight give the result
+	 */
+	public void setFallbackRows(int[] fallbackRows) {
+		this.fallbackRows = fallbackRows;
+	}
+	
+	/**
+	 * @return a lower bound of the minimum weight if solve has been stopped by the deadline, Long.MIN_VALUE
+	 * otherwise. The weights of the cells are taken as non negative
+	 */
+	public long getLowerBound() {
+		return lowerBound;
+	}
+	
+	/**
+	 * Finds the minimum weight to go from the first column to the last column, and the path for it
+	 * @return true if a path has been found, false if there is none or if the deadline has passed first
+	 * @throws CancellationException if the solver has been cancelled
+	 */
+	public boolean solve() {
+		if (rows == 0 || cols == 0)
+			return false;
+		long cells = (long) rows * cols;
+		if (cells <= MAXIMUM_ARRAY_LENGTH)
+			predecessors = new byte[(int) cells];
+		else
+			offHeapPredecessors = OffHeapArray.allocate(cells, OffHeapArray.CHUNK_SHIFT);
+		try {
+			long[] weights = new long[rows];
+			int[] sources = new int[rows];
+			if (!sweepFromFirstColumn(weights, sources))
+				return false;
+			pathRows = new int[cols];
+			pathRows[cols-1] = closestRow(weights, sources);
+			minimumWeight = weights[pathRows[cols-1]];
+			for (int col = cols-1; col > 0; col--)
+				pathRows[col-1] = wrap(pathRows[col] + getPredecessor((long) col * rows + pathRows[col]), rows);
+			return true;
+		}
+		finally {
+			predecessors = null;
+			offHeapPredecessors = null;
+		}
+	}
+
+	/**
+	 * Sweeps the columns with every row of the first column as a source, and records for each cell the row offset
+	 * (-1, 0, 1) of its predecessor on the path
+	 * @param lastWeights set to the weight of the lightest path to each row of the last column
+	 * @param lastSources set to the first source row of such a path, for each row of the last column
+	 * @return false if the deadline has passed first
+	 */
+	private boolean sweepFromFirstColumn(long[] lastWeights, int[] lastSources) {
+		int[] column = readColumn(0, new int[rows]);
+		long[] weights = new long[rows];
+		int[] sources = new int[rows];
+		for (int row = 0; row < rows; row++) {
+			weights[row] = column[row];
+			sources[row] = row;
+		}
+		long[] nextWeights = new long[rows];
+		int[] nextSources = new int[rows];
+		byte[] offsets = new byte[rows];
+		for (int col = 1; col < cols; col++) {
+			checkCancelled();
+			if (isExpired()) {
+				// the columns left cannot make a path lighter than the lightest path to the columns swept
+				lowerBound = Long.MAX_VALUE;
+				for (long weight : weights)
+					lowerBound = Math.min(lowerBound, weight);
+				if (fallbackRows != null)
+					joinFallbackPath(col, weights);
+				return false;
+			}
+			sweepColumn(weights, sources, readColumn(col, column), nextWeights, nextSources, offsets);
+			putPredecessors((long) col * rows, offsets);
+			long[] swapWeights = weights;
+			weights = nextWeights;
+			nextWeights = swapWeights;
+			int[] swapSources = sources;
+			sources = nextSources;
+			nextSources = swapSources;
+		}
+		System.arraycopy(weights, 0, lastWeights, 0, rows);
+		System.arraycopy(sources, 0, lastSources, 0, rows);
+		return true;
+	}
+
+	/**
+	 * Moves the sweep to the next column. A row comes from the predecessor of smallest weight, then of first
+	 * source, then of smallest row
+	 * @param weights weight of the lightest path to each row of the previous column
+	 * @param sources first source row of such a path, for each row of the previous column
+	 * @param column weights of the next column
+	 * @param nextWeights set to the weight of the lightest path to each row of the next column
+	 * @param nextSources set to the first source row of such a path, for each row of the next column
+	 * @param offsets set to the row offset (-1, 0, 1) of the predecessor of each row of the next column
+	 */
+	static void sweepColumn(long[] weights, int[] sources, int[] column, long[] nextWeights, int[] nextSources, byte[] offsets) {
+		int rows = column.length;
+		for (int row = 0; row < rows; row++) {
+			int best = -1;
+			int bestOffset = 0;
+			for (int offset = -1; offset <= 1; offset++) {
+				int previous = wrap(row + offset, rows);
+				if (best == -1 || weights[previous] < weights[best]
+						|| (weights[previous] == weights[best] && (sources[previous] < sources[best] || (sources[previous] == sources[best] && previous < best)))) {
+					best = previous;
+					bestOffset = offset;
+				}
+			}
+			nextWeights[row] = weights[best] + column[row];
+			nextSources[row] = sources[best];
+			offsets[row] = (byte) bestOffset;
+		}
+	}
+
+	/**
+	 * @param weights weight of the lightest path to each row of the last column
+	 * @param sources first source row of such a path, for each row of the last column
+	 * @return the destination: the first row of minimum weight reached from the first source of minimum weight
+	 */
+	static int closestRow(long[] weights, int[] sources) {
+		int closest = 0;
+		for (int row = 1; row < weights.length; row++) {
+			if (weights[row] < weights[closest] || (weights[row] == weights[closest] && sources[row] < sources[closest]))
+				closest = row;
+		}
+		return closest;
+	}
+
+	/**
+	 * Keeps the fallback path from a column, and goes back from there to the previous column on the row of
+	 * smallest weight, then follows the predecessors
+	 * @param col first column kept from the fallback path, the columns before it have been swept
+	 * @param weights weight of the lightest path to each row of the column before it
+	 */
+	private void joinFallbackPath(int col, long[] weights) {
+		int[] path = new int[cols];
+		long weight = 0;
+		for (int c = col; c < cols; c++) {
+			path[c] = fallbackRows[c];
+			weight += weightMatrix.get(path[c], c);
+		}
+		int previous = -1;
+		for (int offset = -1; offset <= 1; offset++) {
+			int row = wrap(path[col] + offset, rows);
+			if (previous == -1 || weights[row] < weights[previous] || (weights[row] == weights[previous] && row < previous))
+				previous = row;
+		}
+		path[col-1] = previous;
+		for (int c = col-1; c > 0; c--)
+			path[c-1] = wrap(path[c] + getPredecessor((long) c * rows + path[c]), rows);
+		minimumWeight = weight + weights[previous];
+		pathRows = path;
+	}
+
+	/**
+	 * @param start index of the first cell of a column
+	 * @param offsets row offset of the predecessor of each row of the column
+	 */
+	private void putPredecessors(long start, byte[] offsets) {
+		if (predecessors != null)
+			System.arraycopy(offsets, 0, predecessors, (int) start, rows);
+		else {
+			for (int row = 0; row < rows; row++)
+				offHeapPredecessors.putByte(start + row, offsets[row]);
+		}
+	}
+
+	private byte getPredecessor(long cell) {
+		return predecessors != null ? predecessors[(int) cell] : offHeapPredecessors.getByte(cell);
+	}
+
+	private boolean isExpired() {
+		return timed && System.nanoTime() - deadline >= 0;
+	}
+
+	private void checkCancelled() {
+		if (cancelled)
+			throw new CancellationException("The sweep has been cancelled");
+	}
+
+	private int[] readColumn(int col, int[] column) {
+		for (int row = 0; row < rows; row++)
+			column[row] = weightMatrix.get(row, col);
+		return column;
+	}
+
+	static int wrap(int row, int rows) {
+		return (row + rows) % rows;
+	}
+}
@@ -0,0 +1,139 @@
+package com.solium.cylindricalMatrix;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Weight matrix kept in one flat array, row by row, of the narrowest type that holds its weights: bytes for weights
+ * from 0 to 255, shorts for weights from 0 to 65535 (read unsigned) and ints otherwise. The matrix starts with
+ * bytes and is widened the first time a row holds a weight that does not fit, so that a matrix of small weights
+ * takes a quarter of the memory of an int matrix without knowing its weights before reading them.
+ *
+ * The rows can be set by several threads at the same time as long as they set different rows. The weights must
+ * all be set before the matrix is read
+ */
+
+public class FlatWeightMatrix implements WritableWeightMatrix {
+
+	private final int rows;
+	private final int cols;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock(); //setting rows shares it, widening takes it alone
+	private int width = 1;
+	private byte[] bytes;
+	private short[] shorts;
+	private int[] ints;
+
+	/**
+	 * @param rows
+	 * @param cols
+	 */
+	public FlatWeightMatrix(int rows, int cols) {
+		if ((long) rows * cols > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("The matrix has more cells than an array can hold");
+		this.rows = rows;
+		this.cols = cols;
+		this.bytes = new byte[rows * cols];
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return cols;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int get(int row, int col) {
+		return get(row * cols + col);
+	}
+
+	public int get(int index) {
+		switch (width) {
+		case 1:
+			return bytes[index] & 0xff;
+		case 2:
+			return shorts[index] & 0xffff;
+		default:
+			return ints[index];
+		}
+	}
+
+	public void setRow(int row, int[] weights) {
+		int needed = widthOf(weights);
+		lock.readLock().lock();
+		try {
+			while (needed > width) {
+				lock.readLock().unlock();
+				try {
+					widen(needed);
+				}
+				finally {
+					lock.readLock().lock();
+				}
+			}
+			int start = row * cols;
+			if (width == 1) {
+				for (int col = 0; col < cols; col++)
+					bytes[start + col] = (byte) weights[col];
+			}
+			else if (width == 2) {
+				for (int col = 0; col < cols; col++)
+					shorts[start + col] = (short) weights[col];
+			}
+			else
+				System.arraycopy(weights, 0, ints, start, cols);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param weights
+	 * @return the number of bytes needed by the weights
+	 */
+	private int widthOf(int[] weights) {
+		int needed = 1;
+		for (int col = 0; col < cols; col++) {
+			int weight = weights[col];
+			if (weight < 0 || weight > 0xffff)
+				return 4;
+			if (weight > 0xff)
+				needed = 2;
+		}
+		return needed;
+	}
+
+	/**
+	 * Copies the weights set so far to a wider array
+	 * @param needed number of bytes of a weight needed
+	 */
+	private void widen(int needed) {
+		lock.writeLock().lock();
+		try {
+			if (needed <= width)
+				return;
+			int count = rows * cols;
+			if (needed == 2) {
+				shorts = new short[count];
+				for (int i = 0; i < count; i++)
+					shorts[i] = (short) (bytes[i] & 0xff);
+			}
+			else {
+				ints = new int[count];
+				for (int i = 0; i < count; i++)
+					ints[i] = width == 1 ? bytes[i] & 0xff : shorts[i] & 0xffff;
+				shorts = null;
+			}
+			bytes = null;
+			width = needed;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
@@ -3,12 +3,11 @@ package com.solium.cylindricalMatrix;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  *Graph defined by its edges 
@@ -25,13 +24,43 @@ public class Graph {
 	private List<Node> sources;
 	private List<Node> destinations;
 	private List<Integer> sourceWeights; //Keeps the weight for the sources to be added to the sum of the weight from source to dest since we do not take into account the source weight in the algorithm
-	private int minimumWeight = Integer.MAX_VALUE; //Keeps the minimal weight to go from source(s) to destination(s)
+	private long minimumWeight = Long.MAX_VALUE; //Keeps the minimal weight to go from source(s) to destination(s), as a long so that long paths cannot overflow
+	private boolean multiSource = false; //Finds the closest source and destination in a single Dijkstra instead of one per pair
+	private boolean bidirectional = false; //Searches from the source and from the destination at the same time for a single pair
+	private boolean goalDirected = false; //A*: the nodes closer to the destination (by getLowerBound) are solved first
+	private int settledNodesCount; //Number of nodes solved by the last search, to compare the search modes
+	private int minimumEdgeWeight = -1; //Range of the edge weights when it is known to be small, -1 otherwise
+	private int maximumEdgeWeight = -1;
+	private volatile boolean cancelled = false; //Set by cancel from any thread, stops the search running on the graph
+	
+	//Deadline of solveWithin, given to the workspace of the solve: the queries of findShortestPath do not see it
+	private boolean timed = false;
+	private long deadline; //System.nanoTime() at which the search stops
+	private long unfinishedBound; //Lower bound of the weight of the paths the searches stopped by the deadline could still find
+	private ShortestPath fallbackPath; //Complete path solveWithin falls back on if the searches are stopped before finding a lighter one
 
-	//These variables are needed for finding the shortest path between a source and a destination using Dijkstra
-	private Set<Node> solvedNodes = new HashSet<Node>();
-	private Set<Node> unSolvedNodes = new HashSet<Node>();
-	private Map<Node, Node> pathTrack = new HashMap<Node, Node>();
-	private Map<Node, Integer> distance = new HashMap<Node, Integer>();
+	//Distances, predecessors, solved nodes and queue of Dijkstra, reused by every search between a source and a destination.
+	//Volatile, so that cancel reaches the solve running
+	private volatile SolverWorkspace workspace;
+	//Bidirectional search of findShortestPathFromSourcesAndDestinations, kept so that its workspaces are reused
+	private BidirectionalDijkstra bidirectionalSearch;
+	//Workspaces of the findShortestPath calls, each call takes one so that calls can run at the same time
+	private final ConcurrentLinkedQueue<SolverWorkspace> workspacePool = new ConcurrentLinkedQueue<SolverWorkspace>();
+	
+	//Each node of the edges, sources and destinations gets an index following the order of its row and column
+	private Node[] indexedNodes;
+	private int indexedEdgesCount = -1;
+	private int matrixColumns; //Number of columns when the indexed nodes are every cell of a matrix, 0 otherwise
+	
+	//Compressed sparse row adjacency of the indexed nodes
+	private int[] adjacencyOffsets;
+	private int[] adjacencyTargets;
+	private int[] adjacencyWeights;
+	
+	//Compressed sparse row adjacency of the reversed edges, only built for searches going backward from a destination
+	private int[] reverseAdjacencyOffsets;
+	private int[] reverseAdjacencyTargets;
+	private int[] reverseAdjacencyWeights;
 	
 	public Graph(List<Edge> edges) {
 		this.edges = edges;
@@ -41,159 +70,573 @@ public class Graph {
 		return edges;
 	}
 	
-	public int getMinimumWeight() {
+	public long getMinimumWeight() {
 		return minimumWeight;
 	}
 	
+	/**
+	 * @return the number of nodes solved to find the shortest path, in every Dijkstra run of the last search
+	 */
+	public int getSettledNodesCount() {
+		return settledNodesCount;
+	}
+	
+	protected void setMinimumWeight(long minimumWeight) {
+		this.minimumWeight = minimumWeight;
+	}
+	
+	public List<Node> getSources() {
+		return sources;
+	}
+	
+	public List<Node> getDestinations() {
+		return destinations;
+	}
+	
+	public List<Integer> getSourceWeights() {
+		return sourceWeights;
+	}
+	
 	public void setSources(List<Node> sources) {
 		this.sources = sources;
+		this.indexedEdgesCount = -1;
 	}
 	
 	public void setDestinations(List<Node> destinations) {
 		this.destinations = destinations;
+		this.indexedEdgesCount = -1;
 	}
 	
 	public void setSourceWeights(List<Integer> sourceWeights) {
 		this.sourceWeights = sourceWeights;
 	}
 	
+	public boolean isMultiSource() {
+		return multiSource;
+	}
+	
+	public void setMultiSource(boolean multiSource) {
+		this.multiSource = multiSource;
+	}
+	
+	public boolean isBidirectional() {
+		return bidirectional;
+	}
+	
+	/**
+	 * @param bidirectional true to use a BidirectionalDijkstra when there is one source and one destination.
+	 * The weight and the path are the same
+	 */
+	public void setBidirectional(boolean bidirectional) {
+		this.bidirectional = bidirectional;
+	}
+	
+	public boolean isGoalDirected() {
+		return goalDirected;
+	}
+	
+	/**
+	 * @param goalDirected true to find the path between a source and a destination with A*, using getLowerBound 
+	 * as the heuristic. The weight is the same, but the path can be a different one of the same weight
+	 */
+	public void setGoalDirected(boolean goalDirected) {
+		this.goalDirected = goalDirected;
+		this.workspace = null;
+		this.workspacePool.clear();
+	}
+	
+	/**
+	 * @return the largest edge weight if the weight range has been set, -1 otherwise
+	 */
+	public int getMaximumEdgeWeight() {
+		return maximumEdgeWeight;
+	}
+	
+	/**
+	 * Tells the graph that every edge weight is an integer between minimum and maximum, so that Dijkstra can use 
+	 * a BucketQueue instead of a binary heap. The weight and the path are the same
+	 * @param minimum smallest edge weight, at least 0
+	 * @param maximum largest edge weight, -1 to use the binary heap
+	 */
+	public void setEdgeWeightRange(int minimum, int maximum) {
+		this.minimumEdgeWeight = minimum;
+		this.maximumEdgeWeight = maximum;
+		this.workspace = null;
+		this.workspacePool.clear();
+	}
+	
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * Stops the solve running on the graph (findShortestPathFromSourcesAndDestinations or solveWithin), from any 
+	 * thread: the search throws a CancellationException at its next step, and so does every solve started on the 
+	 * graph afterwards. The queries of findShortestPath have their own workspaces and are not stopped
+	 */
+	public void cancel() {
+		cancelled = true;
+		SolverWorkspace solving = workspace;
+		if (solving != null)
+			solving.cancel();
+	}
+	
+	/**
+	 * Called at each step of the searches only run by a solve
+	 * @throws CancellationException if the graph has been cancelled
+	 */
+	protected void checkCancelled() {
+		if (cancelled)
+			throw new CancellationException("The search has been cancelled");
+	}
+	
+	/**
+	 * Solves like findShortestPathFromSourcesAndDestinations, but the searches stop once a time budget is spent.
+	 * Before they start, findFallbackPath gives a complete path without searching, which the searches can improve
+	 * (see GridGraph). If they are stopped, the solution is the lightest complete path found so far, if any, and 
+	 * a lower bound of the minimum weight proven by the searches stopped: with the pairs, the sources of the pairs
+	 * not searched yet and the distance reached by the search stopped, with the sources searched together, the
+	 * distance they all reached, and with a column sweep, the weights of the columns swept. The solution is flagged
+	 * optimal when the bound shows that the best path found is the one a complete solve gives. Each call solves
+	 * the graph again, whatever an earlier solve has found. The edge weights are taken as non negative, as 
+	 * Dijkstra does, and a single pair is searched by Dijkstra or A* even in bidirectional mode
+	 * @param timeout
+	 * @param unit
+	 * @return the solution, optimal or not
+	 */
+	public Solution solveWithin(long timeout, TimeUnit unit) {
+		deadline = System.nanoTime() + unit.toNanos(timeout);
+		timed = true;
+		// the searches only keep a path lighter than the minimum weight, which an earlier solve has left
+		minimumWeight = Long.MAX_VALUE;
+		unfinishedBound = Long.MAX_VALUE;
+		fallbackPath = null;
+		try {
+			fallbackPath = findFallbackPath();
+			List<Node> path = findShortestPathFromSourcesAndDestinations();
+			if (path == null)
+				path = Collections.emptyList();
+			if (unfinishedBound >= minimumWeight)
+				return new Solution(path, minimumWeight);
+			// the fallback path is not flagged optimal even when the bound reaches its weight, a complete solve
+			// could give another path of the same weight
+			ShortestPath fallback = fallbackPath;
+			if (fallback != null && fallback.getWeight() < minimumWeight)
+				return new Solution(fallback.getPath(), fallback.getWeight(), unfinishedBound, false);
+			return new Solution(path, minimumWeight, unfinishedBound, false);
+		}
+		finally {
+			timed = false;
+			fallbackPath = null;
+		}
+	}
+	
+	/**
+	 * A complete path from a source to a destination found without searching, so that solveWithin has a path
+	 * whenever the deadline stops the searches. A graph only defined by its edges knows none
+	 * @return the path and its weight, including the source weight, null if there is none
+	 */
+	protected ShortestPath findFallbackPath() {
+		return null;
+	}
+	
+	/**
+	 * @return the path solveWithin falls back on, null if there is none or if the solve is not run by solveWithin
+	 */
+	protected ShortestPath getFallbackPath() {
+		return fallbackPath;
+	}
+	
+	/**
+	 * Gives solveWithin a complete path found by a search stopped by the deadline, kept if it is lighter than the
+	 * path it falls back on
+	 * @param path
+	 */
+	protected void keepFallbackPath(ShortestPath path) {
+		if (fallbackPath == null || path.getWeight() < fallbackPath.getWeight())
+			fallbackPath = path;
+	}
+	
+	/**
+	 * @return the System.nanoTime() at which a search run by solveWithin stops, only meaningful if isTimed
+	 */
+	protected long getDeadline() {
+		return deadline;
+	}
+	
+	protected boolean isTimed() {
+		return timed;
+	}
+	
+	/**
+	 * Records the lower bound of a search stopped by the deadline of solveWithin
+	 * @param lowerBound lower bound of the weight of the paths the search could still have found
+	 */
+	protected void boundUnfinished(long lowerBound) {
+		unfinishedBound = Math.min(unfinishedBound, lowerBound);
+	}
+	
+	/**
+	 * @return the workspace of the last findShortestPathFromSourcesAndDestinations, null before the first one
+	 */
+	public SolverWorkspace getWorkspace() {
+		return workspace;
+	}
+	
+	/**
+	 * Gives the graph the workspace of findShortestPathFromSourcesAndDestinations, for instance the one of a graph
+	 * solved before by the same thread, so that its arrays are not allocated again. It is only used if it has one
+	 * node per node of the graph and its queue can order the edge weights of the graph, it is replaced otherwise
+	 * @param workspace a reset workspace, that no other search uses
+	 */
+	public void setWorkspace(SolverWorkspace workspace) {
+		this.workspace = workspace;
+	}
+	
 	/**
 	 * This method uses Dijkstra's algorithm to find the shortest path (possibly more than one) between 
 	 * source and destination
-	 * @param source 
-	 * @param destination
-	 * @return A list of nodes to go from source to the destination from the shortest path
+	 * @param source index of the source
+	 * @param destination index of the destination
+	 * @param workspace state of the search, reset
+	 * @return the indices of the nodes to go from source to the destination on the shortest path, null if the
+	 * destination cannot be reached
 	 * 
 	 * NOTE: The implementation of Dijkstra is inspired from http://www.vogella.com/tutorials/JavaAlgorithmsDijkstra/article.html
 	 */
-	private LinkedList<Node> findShortestPathFromSourceToDestination(Node source, Node destination) {
-	    LinkedList<Node> path = new LinkedList<Node>();
-	    distance.put(source, 0);
-	    unSolvedNodes.add(source);
-	    while (unSolvedNodes.size() > 0) {
-	      Node node = getMinimum(unSolvedNodes);
-	      solvedNodes.add(node);
-	      unSolvedNodes.remove(node);
-	      findMinimalDistances(node);
+	private int[] findShortestPathFromSourceToDestination(int source, int destination, SolverWorkspace workspace) {
+	    NodeQueue unSolvedNodes = workspace.getQueue();
+	    workspace.setDistance(source, 0, -1);
+	    unSolvedNodes.push(source, 0);
+	    while (!unSolvedNodes.isEmpty()) {
+	      workspace.checkCancelled();
+	      int node = unSolvedNodes.poll();
+	      if (workspace.isExpired()) {
+	        // the keys come out in increasing order, so the destination is at least as far as the node not solved
+	        long lowerBound = goalDirected ? getLowerBound(node, destination) : 0;
+	        workspace.stop(workspace.getDistance(node) + lowerBound);
+	        return null;
+	      }
+	      workspace.setSolved(node);
+	      // the path to the destination cannot change once the destination is solved
+	      if (node == destination)
+	        break;
+	      findMinimalDistances(node, destination, workspace);
 	    }
-	    Node step = destination;
-	    // check if a path exists
-	    if (pathTrack.get(step) == null)
-	      return null;
-	    path.add(step);
-	    while (pathTrack.get(step) != null) {
-	      step = pathTrack.get(step);
-	      path.add(step);
+	    return pathTo(destination, workspace);
+	}
+	
+	/**
+	 * Runs Dijkstra's algorithm from a source until all the targets are solved, so that the shortest path tree
+	 * holds the path from the source to each target
+	 * @param source index of the source
+	 * @param targets indices of the targets, sorted and without duplicates, empty to solve every node reached
+	 * @param workspace state of the search, reset
+	 */
+	void findShortestPathTree(int source, int[] targets, SolverWorkspace workspace) {
+	    NodeQueue unSolvedNodes = workspace.getQueue();
+	    workspace.setDistance(source, 0, -1);
+	    unSolvedNodes.push(source, 0);
+	    int unSolvedTargets = targets.length;
+	    while (!unSolvedNodes.isEmpty()) {
+	      workspace.checkCancelled();
+	      int node = unSolvedNodes.poll();
+	      workspace.setSolved(node);
+	      // the paths to the targets cannot change once they are all solved
+	      if (Arrays.binarySearch(targets, node) >= 0 && --unSolvedTargets == 0)
+	        break;
+	      findMinimalDistances(node, -1, workspace);
 	    }
-	    // reverse the list to get the right order of nodes from source to destination
-	    Collections.reverse(path);
-	    return path;
 	}
 	
 	/**
-	 * Finds the total weight for the shortest path between source and the destination
-	 * @param sourceWeight
-	 * @param destination
-	 * @return
+	 * @param destination index of the destination
+	 * @param workspace state of a search that has solved the destination, or has run out of nodes
+	 * @return the indices of the nodes to go from the source of the search to the destination, null if the
+	 * destination cannot be reached
 	 */
-	private Integer shortestPathWeight(int sourceWeight, Node destination) {
-		if (distance.get(destination) == null)
-			return null;
-		return distance.get(destination) + sourceWeight;
+	int[] pathTo(int destination, SolverWorkspace workspace) {
+	    // check if a path exists
+	    if (workspace.getDistance(destination) == SolverWorkspace.UNREACHED)
+	      return null;
+	    int length = 0;
+	    for (int step = destination; step != -1; step = workspace.getPredecessor(step))
+	      length++;
+	    // follow the predecessors back from the destination to get the nodes from source to destination
+	    int[] path = new int[length];
+	    for (int step = destination; step != -1; step = workspace.getPredecessor(step))
+	      path[--length] = step;
+	    return path;
 	}
 	
 	/**
 	 * @param node
+	 * @param destination index of the destination, for the lower bound of the nodes in goal directed mode, -1 if
+	 * the search has no single destination
+	 * @param workspace state of the search
 	 * Given a node it sets the distance for the neighbor nodes(targets), if the distance from node to the neighbor 
-	 * is less than or equal to the distance value for the target(neighbor) -in case of a tie it will do a lexicoGraphical check
-	 */
-	private void findMinimalDistances(Node node) {
-	    List<Node> adjacentNodes = getNeighbors(node);
-	    for (Node target : adjacentNodes) {
-	    	int currentDistance = getShortestDistance(target);
-	    	int nodeDistance = getShortestDistance(node);
-	    	int nodeTargetDistance = getDistance(node, target);
-	    	if ((currentDistance > nodeDistance + nodeTargetDistance) || ((currentDistance == nodeDistance + nodeTargetDistance) && (node.getId().compareTo(pathTrack.get(target).getId()) < 0))) {
-		        distance.put(target, nodeDistance + getDistance(node, target));
-		        pathTrack.put(target, node);
-		        unSolvedNodes.add(target);
+	 * is less than or equal to the distance value for the target(neighbor) -in case of a tie it keeps the node with the smallest index,
+	 * which is the node with the smallest row and then the smallest column. The queue gives the nodes of the same
+	 * distance of a matrix column by column, so that in the Standard version every predecessor on a minimal path
+	 * has been seen once a node is solved, even through cells of weight 0
+	 */
+	private void findMinimalDistances(int node, int destination, SolverWorkspace workspace) {
+	    NodeQueue unSolvedNodes = workspace.getQueue();
+	    long nodeDistance = workspace.getDistance(node);
+	    int degree = getDegree(node);
+	    for (int slot = 0; slot < degree; slot++) {
+	    	int neighbor = getNeighbor(node, slot);
+	    	if (neighbor == -1 || workspace.isSolved(neighbor))
+	    		continue;
+	    	long currentDistance = workspace.getDistance(neighbor);
+	    	int nodeTargetDistance = getNeighborDistance(node, slot);
+	    	if ((currentDistance > nodeDistance + nodeTargetDistance) || ((currentDistance == nodeDistance + nodeTargetDistance) && (node < workspace.getPredecessor(neighbor)))) {
+		        workspace.setDistance(neighbor, nodeDistance + nodeTargetDistance, node);
+		        long lowerBound = goalDirected && destination != -1 ? getLowerBound(neighbor, destination) : 0;
+		        unSolvedNodes.push(neighbor, nodeDistance + nodeTargetDistance + lowerBound);
 	    	}
 	    }
 	}
 	
 	/**
-	 * @param node
-	 * @param target
-	 * @return gets the weight for an edge which is the distance between the input nodes
+	 * @param node index of a node
+	 * @return the number of neighbor slots of a node
 	 */
-	private int getDistance(Node node, Node target) {
-	    for (Edge edge : edges) {
-	      if (edge.getSource().equals(node) && edge.getDestination().equals(target))
-	        return edge.getWeight();
-	    }
-	    throw new RuntimeException("Should not happen");
-    }
+	protected int getDegree(int node) {
+		return adjacencyOffsets[node+1] - adjacencyOffsets[node];
+	}
+	
+	/**
+	 * @param node index of a node
+	 * @param slot between 0 and the degree of the node
+	 * @return the index of the adjacent node in the slot, -1 if the slot is empty
+	 */
+	protected int getNeighbor(int node, int slot) {
+		return adjacencyTargets[adjacencyOffsets[node] + slot];
+	}
+	
+	/**
+	 * @param node index of a node
+	 * @param slot between 0 and the degree of the node
+	 * @return the weight for the edge in the slot, which is the distance between the node and its neighbor
+	 */
+	protected int getNeighborDistance(int node, int slot) {
+		return adjacencyWeights[adjacencyOffsets[node] + slot];
+	}
+	
+	/**
+	 * Heuristic of the goal directed mode. It must never be more than the real distance from the node to the
+	 * destination, and must not decrease by more than the weight of an edge along the edge, so that the first time 
+	 * a node is solved its distance is minimal. A graph only defined by its edges knows nothing better than 0
+	 * @param node index of a node
+	 * @param destination index of the destination
+	 * @return a lower bound of the distance from the node to the destination
+	 */
+	protected long getLowerBound(int node, int destination) {
+		return 0;
+	}
+	
+	/**
+	 * @param node index of a node
+	 * @return the number of reversed edges going out of a node (the edges coming into it)
+	 */
+	protected int getReverseDegree(int node) {
+		buildReverseAdjacency();
+		return reverseAdjacencyOffsets[node+1] - reverseAdjacencyOffsets[node];
+	}
+	
+	/**
+	 * @param node index of a node
+	 * @param slot between 0 and the reverse degree of the node
+	 * @return the index of the node that has an edge to this node in the slot, -1 if the slot is empty
+	 */
+	protected int getReverseNeighbor(int node, int slot) {
+		return reverseAdjacencyTargets[reverseAdjacencyOffsets[node] + slot];
+	}
+	
+	/**
+	 * @param node index of a node
+	 * @param slot between 0 and the reverse degree of the node
+	 * @return the weight of the edge from the reverse neighbor in the slot to this node
+	 */
+	protected int getReverseNeighborDistance(int node, int slot) {
+		return reverseAdjacencyWeights[reverseAdjacencyOffsets[node] + slot];
+	}
+	
+	/**
+	 * Builds the compressed sparse row adjacency of the reversed edges from the adjacency of the edges
+	 */
+	private void buildReverseAdjacency() {
+		if (reverseAdjacencyOffsets != null)
+			return;
+		int nodesCount = adjacencyOffsets.length - 1;
+		int[] offsets = new int[nodesCount+1];
+		for (int e = 0; e < adjacencyTargets.length; e++)
+			offsets[adjacencyTargets[e]+1]++;
+		for (int i = 0; i < nodesCount; i++)
+			offsets[i+1] += offsets[i];
+		int[] targets = new int[adjacencyTargets.length];
+		int[] weights = new int[adjacencyTargets.length];
+		int[] next = Arrays.copyOf(offsets, nodesCount);
+		for (int node = 0; node < nodesCount; node++) {
+			for (int e = adjacencyOffsets[node]; e < adjacencyOffsets[node+1]; e++) {
+				int position = next[adjacencyTargets[e]]++;
+				targets[position] = node;
+				weights[position] = adjacencyWeights[e];
+			}
+		}
+		reverseAdjacencyOffsets = offsets;
+		reverseAdjacencyTargets = targets;
+		reverseAdjacencyWeights = weights;
+	}
 	
 	/**
 	 * @param node
-	 * @return finds the adjacent nodes to a node
+	 * @return finds the adjacent nodes to a node that are not solved yet
 	 */
-	private List<Node> getNeighbors(Node node) {
+	protected List<Node> getNeighbors(Node node) {
+	    int index = indexOf(node);
 	    List<Node> neighbors = new ArrayList<Node>();
-	    for (Edge edge : edges) {
-	      if (edge.getSource().equals(node)
-	          && !isSolved(edge.getDestination())) {
-	        neighbors.add(edge.getDestination());
-	      }
+	    for (int slot = 0; slot < getDegree(index); slot++) {
+	      int neighbor = getNeighbor(index, slot);
+	      if (neighbor != -1 && !isSolved(nodeAt(neighbor)))
+	        neighbors.add(nodeAt(neighbor));
 	    }
 	    return neighbors;
     }
 	
 	/**
-	 * @param nodes
-	 * @return Among a set of nodes the node that has the shortest distance from source is returned
+	 * Gives an index to each node of the edges, sources and destinations. Indices follow the order of the rows
+	 * and then of the columns, so that the predecessors and the priority queue break ties on the index. The index is kept in the node 
+	 * itself. Edges can still be added after the graph is constructed, so the nodes are indexed again if the
+	 * edges have changed
 	 */
-	private Node getMinimum(Set<Node> nodes) {
-	    Node minimum = null;
-	    for (Node node : nodes) {
-	      if (minimum == null) 
-	        minimum = node;
-	      else if ((getShortestDistance(node) < getShortestDistance(minimum)) || (getShortestDistance(node) == getShortestDistance(minimum) && node.getId().compareTo(minimum.getId()) < 0))
-	          minimum = node;
-	    }
-	    return minimum;
-    }
+	protected void indexNodes() {
+		if (indexedEdgesCount == edges.size())
+			return;
+		// a node may still have the index of a previous indexing, so every node is first marked as not indexed
+		for (Edge edge : edges) {
+			edge.getSource().setIndex(-1);
+			edge.getDestination().setIndex(-1);
+		}
+		for (Node node : sources)
+			if (node != null)
+				node.setIndex(-1);
+		for (Node node : destinations)
+			if (node != null)
+				node.setIndex(-1);
+		List<Node> nodes = new ArrayList<Node>();
+		for (Edge edge : edges) {
+			addNodeToIndex(edge.getSource(), nodes);
+			addNodeToIndex(edge.getDestination(), nodes);
+		}
+		for (Node node : sources)
+			addNodeToIndex(node, nodes);
+		for (Node node : destinations)
+			addNodeToIndex(node, nodes);
+		Collections.sort(nodes);
+		indexedNodes = nodes.toArray(new Node[nodes.size()]);
+		for (int i = 0; i < indexedNodes.length; i++)
+			indexedNodes[i].setIndex(i);
+		matrixColumns = findMatrixColumns(indexedNodes);
+		buildAdjacency();
+		reverseAdjacencyOffsets = null;
+		indexedEdgesCount = edges.size();
+	}
 	
 	/**
-	 * @param node
-	 * @return
+	 * @param nodes nodes in the order of their index
+	 * @return the number of columns if the nodes are every cell of a matrix, so that the node i is the cell of row
+	 * i / columns and column i % columns, 0 otherwise
 	 */
-	private boolean isSolved(Node node) {
-	    return solvedNodes.contains(node);
-    }
+	private static int findMatrixColumns(Node[] nodes) {
+		if (nodes.length == 0)
+			return 0;
+		int columns = nodes[nodes.length-1].getColumn();
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i].getRow() != i / columns + 1 || nodes[i].getColumn() != i % columns + 1)
+				return 0;
+		}
+		return columns;
+	}
 	
 	/**
-	 * @param destination
-	 * @return The shortest distance so far to get from source to a node
-	 */
-	private int getShortestDistance(Node destination) {
-	    Integer d = distance.get(destination);
-	    if (d == null)
-	      return Integer.MAX_VALUE;
-	    else 
-	      return d;
-    }
+	 * @return the number of columns of the matrix whose cells are the nodes, by which the queues of Dijkstra
+	 * order the nodes of the same distance (see IndexedMinHeap), 0 if the nodes are not the cells of a matrix
+	 */
+	protected int getMatrixColumns() {
+		return matrixColumns;
+	}
+	
+	/**
+	 * Builds the compressed sparse row adjacency of the edges, so that the neighbors of a node are found
+	 * without iterating through all edges. The edges going out of the node i are at the positions 
+	 * adjacencyOffsets[i] to adjacencyOffsets[i+1]-1 of adjacencyTargets and adjacencyWeights
+	 */
+	private void buildAdjacency() {
+		int nodesCount = indexedNodes.length;
+		int[] sourceIndices = new int[edges.size()];
+		int[] targetIndices = new int[edges.size()];
+		adjacencyOffsets = new int[nodesCount+1];
+		int e = 0;
+		for (Edge edge : edges) {
+			sourceIndices[e] = edge.getSource().getIndex();
+			targetIndices[e] = edge.getDestination().getIndex();
+			adjacencyOffsets[sourceIndices[e]+1]++;
+			e++;
+		}
+		for (int i = 0; i < nodesCount; i++)
+			adjacencyOffsets[i+1] += adjacencyOffsets[i];
+		adjacencyTargets = new int[edges.size()];
+		adjacencyWeights = new int[edges.size()];
+		int[] next = Arrays.copyOf(adjacencyOffsets, nodesCount);
+		e = 0;
+		for (Edge edge : edges) {
+			int position = next[sourceIndices[e]]++;
+			adjacencyTargets[position] = targetIndices[e];
+			adjacencyWeights[position] = edge.getWeight();
+			e++;
+		}
+	}
+	
+	private void addNodeToIndex(Node node, List<Node> nodes) {
+		if (node != null && node.getIndex() == -1) {
+			node.setIndex(nodes.size());
+			nodes.add(node);
+		}
+	}
+	
+	/**
+	 * @return the number of indexed nodes
+	 */
+	protected int getNodeCount() {
+		return indexedNodes.length;
+	}
+	
+	/**
+	 * @param node
+	 * @return the index of a node
+	 */
+	protected int indexOf(Node node) {
+		return node.getIndex();
+	}
 	
 	/**
-	 * this method clears the graph from attributes values that are used for finding shortest path
+	 * @param index
+	 * @return the node for an index
 	 */
-	private void clearGraph() {
-		solvedNodes.clear();
-		unSolvedNodes.clear(); 
-		pathTrack.clear();
-		distance.clear();
+	protected Node nodeAt(int index) {
+		return indexedNodes[index];
 	}
 	
+	/**
+	 * @param node
+	 * @return
+	 */
+	protected boolean isSolved(Node node) {
+	    return workspace != null && workspace.isSolved(indexOf(node));
+    }
+	
 	/**
 	 * Finds the minimal weight given a set of sources and destinations
 	 * @return the list of nodes indicating the shortest path
@@ -201,21 +644,240 @@ public class Graph {
 	public LinkedList<Node> findShortestPathFromSourcesAndDestinations() {
 		if (sources == null || destinations == null)
 			return null;
+		indexNodes();
+		SolverWorkspace solveWorkspace = workspace;
+		if (solveWorkspace == null || !fits(solveWorkspace))
+			solveWorkspace = new SolverWorkspace(createUnSolvedNodes());
+		solveWorkspace.clearLimits();
+		if (timed)
+			solveWorkspace.setDeadline(deadline);
+		// published before checking, so that a cancel in between reaches the workspace
+		workspace = solveWorkspace;
+		checkCancelled();
+		settledNodesCount = 0;
 		LinkedList<Node> minimumPath = new LinkedList<Node>();
+		if (bidirectional && !timed && sources.size() == 1 && destinations.size() == 1) {
+			if (bidirectionalSearch == null)
+				bidirectionalSearch = new BidirectionalDijkstra(this);
+			BidirectionalDijkstra search = bidirectionalSearch;
+			int[] path = search.search(indexOf(sources.get(0)), indexOf(destinations.get(0)));
+			settledNodesCount = search.getSettledNodesCount();
+			if (path != null)
+				keepIfShorter(path, search.getDistance() + sourceWeights.get(0), minimumPath);
+			return minimumPath;
+		}
+		if (multiSource) {
+			int[] closest = findClosestSourceAndDestination();
+			if (closest != null)
+				findShortestPathFromSourceToDestination(closest[0], closest[1], minimumPath);
+			else if (workspace.isStopped())
+				boundUnfinished(workspace.getFrontierBound());
+			return minimumPath;
+		}
 		for (int i = 0; i < sources.size(); i++) {
-			for (int j = 0; j < destinations.size(); j++) {
-				LinkedList<Node> potentialShortestPath = findShortestPathFromSourceToDestination(sources.get(i), destinations.get(j));
-				int potentialMinWeight = shortestPathWeight(sourceWeights.get(i), destinations.get(j));
-				if (potentialMinWeight < minimumWeight) {
-					minimumWeight = potentialMinWeight;
-					minimumPath.clear();
-					for (Node node: potentialShortestPath)
-						minimumPath.add(node);
+			for (int j = 0; j < destinations.size(); j++)
+				findShortestPathFromSourceToDestination(i, j, minimumPath);
+		}
+		return minimumPath;
+	}
+	
+	/**
+	 * Finds the shortest path between a source and a destination and keeps it if its weight is less than the 
+	 * minimum weight found so far
+	 * @param i position of the source in sources
+	 * @param j position of the destination in destinations
+	 * @param minimumPath the shortest path found so far
+	 */
+	private void findShortestPathFromSourceToDestination(int i, int j, LinkedList<Node> minimumPath) {
+		if (workspace.isExpired()) {
+			// the pair is not searched, the distance is at least 0
+			boundUnfinished(sourceWeights.get(i));
+			return;
+		}
+		int destination = indexOf(destinations.get(j));
+		int[] potentialShortestPath = findShortestPathFromSourceToDestination(indexOf(sources.get(i)), destination, workspace);
+		if (workspace.isStopped() && potentialShortestPath == null)
+			boundUnfinished(sourceWeights.get(i) + workspace.getFrontierBound());
+		if (potentialShortestPath != null)
+			keepIfShorter(potentialShortestPath, workspace.getDistance(destination) + sourceWeights.get(i), minimumPath);
+		settledNodesCount += workspace.getSolvedCount();
+		workspace.reset();
+	}
+	
+	/**
+	 * Finds the shortest path between a source and a destination without changing the graph: the sources, the 
+	 * destinations and the minimum weight of the graph are not used, and the state of the search is kept in a
+	 * workspace taken for this call only, so the deadline of solveWithin and cancel do not stop it. Once its edges 
+	 * and its settings are set, a graph can be shared by any number of threads calling this method, while a solve
+	 * runs on it or not. The search is Dijkstra, or A* in goal directed mode
+	 * @param source
+	 * @param sourceWeight weight of the source, added to the weight of the path
+	 * @param destination
+	 * @return the path and its weight
+	 */
+	public ShortestPath findShortestPath(Node source, int sourceWeight, Node destination) {
+		synchronized (this) {
+			// the edge graph indexes its nodes on the first search, later calls only see that it is done
+			indexNodes();
+		}
+		int sourceIndex = indexOf(source);
+		int destinationIndex = indexOf(destination);
+		if (sourceIndex == -1 || destinationIndex == -1)
+			throw new IllegalArgumentException("The source and the destination must be nodes of the graph");
+		SolverWorkspace queryWorkspace = takeWorkspace();
+		try {
+			int[] path = findShortestPathFromSourceToDestination(sourceIndex, destinationIndex, queryWorkspace);
+			return toShortestPath(path, queryWorkspace.getDistance(destinationIndex) + sourceWeight, queryWorkspace.getSolvedCount());
+		}
+		finally {
+			giveBackWorkspace(queryWorkspace);
+		}
+	}
+	
+	/**
+	 * @param path indices of the nodes of a path, null if the destination cannot be reached
+	 * @param weight weight of the path, including the source weight
+	 * @param settledNodesCount number of nodes solved to find the path
+	 * @return the path as a query result
+	 */
+	ShortestPath toShortestPath(int[] path, long weight, int settledNodesCount) {
+		List<Node> nodes = new ArrayList<Node>();
+		if (path == null)
+			return new ShortestPath(nodes, Long.MAX_VALUE, settledNodesCount);
+		for (int node : path)
+			nodes.add(nodeAt(node));
+		return new ShortestPath(nodes, weight, settledNodesCount);
+	}
+	
+	/**
+	 * Indexes the nodes if needed and takes a workspace from the pool, or makes one if the pool has none for
+	 * the current number of nodes
+	 * @return a reset workspace that only the calling thread uses until it is given back
+	 */
+	SolverWorkspace takeWorkspace() {
+		synchronized (this) {
+			indexNodes();
+		}
+		SolverWorkspace queryWorkspace = workspacePool.poll();
+		if (queryWorkspace == null || queryWorkspace.capacity() != getNodeCount())
+			queryWorkspace = new SolverWorkspace(createUnSolvedNodes());
+		return queryWorkspace;
+	}
+	
+	/**
+	 * Resets a workspace taken with takeWorkspace and puts it back in the pool
+	 * @param queryWorkspace
+	 */
+	void giveBackWorkspace(SolverWorkspace queryWorkspace) {
+		queryWorkspace.reset();
+		workspacePool.offer(queryWorkspace);
+	}
+	
+	/**
+	 * Keeps a path if its weight is less than the minimum weight found so far
+	 * @param path indices of the nodes of the path
+	 * @param weight weight of the path, including the source weight
+	 * @param minimumPath the shortest path found so far
+	 */
+	protected void keepIfShorter(int[] path, long weight, LinkedList<Node> minimumPath) {
+		if (weight < minimumWeight) {
+			minimumWeight = weight;
+			minimumPath.clear();
+			for (int node : path)
+				minimumPath.add(nodeAt(node));
+		}
+	}
+	
+	/**
+	 * @param candidate
+	 * @return true if a workspace has the number of nodes of the graph and the queue createUnSolvedNodes would make
+	 */
+	private boolean fits(SolverWorkspace candidate) {
+		if (candidate.capacity() != getNodeCount())
+			return false;
+		NodeQueue queue = candidate.getQueue();
+		if (maximumEdgeWeight < 0)
+			return queue instanceof IndexedMinHeap && ((IndexedMinHeap) queue).columns() == getMatrixColumns();
+		int span = goalDirected ? 2 * maximumEdgeWeight : maximumEdgeWeight;
+		return queue instanceof BucketQueue && ((BucketQueue) queue).fits(span, goalDirected || minimumEdgeWeight == 0, getMatrixColumns());
+	}
+	
+	/**
+	 * @return a BucketQueue if the edge weights are known to be in a small range, a binary heap otherwise
+	 */
+	private NodeQueue createUnSolvedNodes() {
+		if (maximumEdgeWeight < 0)
+			return new IndexedMinHeap(getNodeCount(), getMatrixColumns());
+		// with A*, the lower bound of a neighbor can be greater than the one of the node by up to an edge weight
+		int span = goalDirected ? 2 * maximumEdgeWeight : maximumEdgeWeight;
+		return new BucketQueue(getNodeCount(), span, goalDirected || minimumEdgeWeight == 0, getMatrixColumns());
+	}
+	
+	/**
+	 * Runs a single Dijkstra where every source starts at its source weight. The key of a node is its distance
+	 * and then the position of the source it is reached from, so nodes reached from an earlier source come first 
+	 * in case of a tie. The destinations settled with the smallest key give the same source and destination 
+	 * as trying every pair in order and keeping the first one of minimum weight.
+	 * @return the positions of the closest source in sources and of the closest destination in destinations,
+	 * null if no destination can be reached
+	 */
+	private int[] findClosestSourceAndDestination() {
+		int nodesCount = getNodeCount();
+		long sourcesCount = sources.size();
+		long[] keys = new long[nodesCount];
+		Arrays.fill(keys, Long.MAX_VALUE);
+		boolean[] solved = new boolean[nodesCount];
+		int[] destinationPositions = new int[nodesCount];
+		Arrays.fill(destinationPositions, -1);
+		// the keys combine the distance and the source position, so they do not fit in the buckets of a BucketQueue
+		IndexedMinHeap unSolvedNodes = new IndexedMinHeap(nodesCount);
+		for (int j = destinations.size() - 1; j >= 0; j--)
+			destinationPositions[indexOf(destinations.get(j))] = j;
+		
+		for (int i = 0; i < sources.size(); i++) {
+			int source = indexOf(sources.get(i));
+			long key = sourceWeights.get(i) * sourcesCount + i;
+			if (key < keys[source]) {
+				keys[source] = key;
+				unSolvedNodes.push(source, key);
+			}
+		}
+		
+		long closestKey = Long.MAX_VALUE;
+		int closestDestination = -1;
+		while (!unSolvedNodes.isEmpty()) {
+			checkCancelled();
+			int node = unSolvedNodes.poll();
+			if (closestDestination == -1 && workspace.isExpired()) {
+				// every destination is at least as far as the node not solved, from any source
+				workspace.stop(Math.floorDiv(keys[node], sourcesCount));
+				return null;
+			}
+			// once a destination is solved, only the nodes with the same key can still give an earlier destination
+			if (keys[node] > closestKey)
+				break;
+			solved[node] = true;
+			settledNodesCount++;
+			int j = destinationPositions[node];
+			if (j != -1 && (closestDestination == -1 || j < closestDestination)) {
+				closestKey = keys[node];
+				closestDestination = j;
+			}
+			int degree = getDegree(node);
+			for (int slot = 0; slot < degree; slot++) {
+				int neighbor = getNeighbor(node, slot);
+				if (neighbor == -1 || solved[neighbor])
+					continue;
+				long key = keys[node] + getNeighborDistance(node, slot) * sourcesCount;
+				if (key < keys[neighbor]) {
+					keys[neighbor] = key;
+					unSolvedNodes.push(neighbor, key);
 				}
-				clearGraph();
 			}
 		}
-		return minimumPath;
+		if (closestDestination == -1)
+			return null;
+		return new int[] {(int) (closestKey % sourcesCount), closestDestination};
 	}
 	
 	/**
@@ -224,9 +886,7 @@ public class Graph {
 	 */
 	public String lexicographicallySmallestForDisplay() {
 		LinkedList<Node> minimumPath = findShortestPathFromSourcesAndDestinations();
-		String stringArray = Arrays.toString(minimumPath.toArray());
-		String pathForDisplay = stringArray.substring(1, stringArray.length()-1);
-		return pathForDisplay.replace("),", ")");
+		return ShortestPath.format(minimumPath);
 	}
 
 } 
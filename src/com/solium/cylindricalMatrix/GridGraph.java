@@ -0,0 +1,440 @@
+package com.solium.cylindricalMatrix;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Graph defined by the weight matrix and the stencil of the version of the problem (S, B1, B2).
+ * No edge is stored, the neighbors of a node are worked out from the stencil when Dijkstra asks for them
+ * and the weight to go to a neighbor is the weight of the neighbor's cell
+ */
+
+public class GridGraph extends Graph {
+
+	private final WeightMatrix weightMatrix;
+	private final NeighborStencil stencil;
+	private final int rows;
+	private final int cols;
+
+	//Nodes are created the first time they are needed, so that there is exactly one node per cell even when
+	//several threads query the graph
+	private final AtomicReferenceArray<Node> nodes;
+	private boolean columnSweep = false; //Solves the Standard version with a ColumnSweepSolver instead of Dijkstra
+	private volatile ColumnSweepSolver sweep; //Solver of the last sweep, stopped by cancel
+	private volatile int minimumCellWeight = -1; //Smallest weight of the matrix, for the lower bound of the goal directed mode
+	private volatile long contentHash; //Hash of the dimensions and the weights of the matrix, 0 until it is needed
+	private volatile ShortestPathTreeCache treeCache; //Trees the queries are answered from, null to search for each query
+	private volatile ShortestPathTreeStore treeStore; //Trees saved by earlier runs, null to grow every tree
+
+	public GridGraph(int[][] weightMatrix, NeighborStencil stencil) {
+		this(new ArrayWeightMatrix(weightMatrix), stencil);
+	}
+
+	/**
+	 * @param weightMatrix weights of the cells, kept in arrays or read in place from a buffer
+	 * @param stencil
+	 */
+	public GridGraph(WeightMatrix weightMatrix, NeighborStencil stencil) {
+		super(Collections.<Edge>emptyList());
+		this.weightMatrix = weightMatrix;
+		this.stencil = stencil;
+		this.rows = weightMatrix.getRows();
+		this.cols = weightMatrix.getColumns();
+		//a matrix of more than 2^31 cells can only be solved by sweeping the columns, its nodes are not kept
+		long cells = (long) rows * cols;
+		this.nodes = cells <= Integer.MAX_VALUE ? new AtomicReferenceArray<Node>((int) cells) : null;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return cols;
+	}
+
+	public NeighborStencil getStencil() {
+		return stencil;
+	}
+
+	public ShortestPathTreeCache getTreeCache() {
+		return treeCache;
+	}
+
+	/**
+	 * @param treeCache cache of the shortest path trees findShortestPath answers from, null to run one search per query
+	 */
+	public void setTreeCache(ShortestPathTreeCache treeCache) {
+		this.treeCache = treeCache;
+	}
+
+	public ShortestPathTreeStore getTreeStore() {
+		return treeStore;
+	}
+
+	/**
+	 * @param treeStore store the shortest path trees are read from before they are grown, and saved to after, null
+	 * to grow every tree
+	 */
+	public void setTreeStore(ShortestPathTreeStore treeStore) {
+		this.treeStore = treeStore;
+	}
+
+	/**
+	 * @return a 64 bit FNV-1a hash of the dimensions and the weights of the matrix, so that the trees of a
+	 * cache can be shared by graphs of the same matrix
+	 */
+	public long getContentHash() {
+		long hash = contentHash;
+		if (hash == 0) {
+			hash = 0xcbf29ce484222325L;
+			hash = (hash ^ rows) * 0x100000001b3L;
+			hash = (hash ^ cols) * 0x100000001b3L;
+			for (int row = 0; row < rows; row++) {
+				for (int col = 0; col < cols; col++)
+					hash = (hash ^ weightMatrix.get(row, col)) * 0x100000001b3L;
+			}
+			contentHash = hash;
+		}
+		return hash;
+	}
+
+	public boolean isColumnSweep() {
+		return columnSweep;
+	}
+
+	/**
+	 * @param columnSweep true to solve with a ColumnSweepSolver, which assumes the standard setting: the Standard
+	 * stencil, every cell of the first column as a source and every cell of the last column as a destination
+	 */
+	public void setColumnSweep(boolean columnSweep) {
+		this.columnSweep = columnSweep;
+	}
+
+	/**
+	 * Stops the search or the sweep running on the graph
+	 */
+	@Override
+	public void cancel() {
+		super.cancel();
+		ColumnSweepSolver solver = sweep;
+		if (solver != null)
+			solver.cancel();
+	}
+
+	/**
+	 * Finds the minimal weight with Dijkstra, or by sweeping the columns for the standard setting
+	 * @return the list of nodes indicating the shortest path
+	 */
+	@Override
+	public LinkedList<Node> findShortestPathFromSourcesAndDestinations() {
+		if (!columnSweep)
+			return super.findShortestPathFromSourcesAndDestinations();
+		LinkedList<Node> minimumPath = new LinkedList<Node>();
+		ColumnSweepSolver solver = new ColumnSweepSolver(weightMatrix);
+		// published before checking, so that a cancel in between reaches the solver
+		sweep = solver;
+		checkCancelled();
+		if (isTimed()) {
+			solver.setDeadline(getDeadline());
+			ShortestPath fallback = getFallbackPath();
+			if (fallback != null && fallback.getPath().size() == cols && fallback.getPath().get(0).getColumn() == 1) {
+				int[] fallbackRows = new int[cols];
+				int col = 0;
+				for (Node node : fallback.getPath())
+					fallbackRows[col++] = node.getRow()-1;
+				solver.setFallbackRows(fallbackRows);
+			}
+		}
+		boolean solved = solver.solve();
+		if (solved && solver.getMinimumWeight() < getMinimumWeight()) {
+			setMinimumWeight(solver.getMinimumWeight());
+			int[] pathRows = solver.getPathRows();
+			for (int col = 0; col < cols; col++)
+				minimumPath.add(getNode(pathRows[col], col));
+		}
+		else if (!solved && solver.getPathRows() != null) {
+			// the fallback path joined to the columns swept before the deadline
+			List<Node> path = new LinkedList<Node>();
+			int[] pathRows = solver.getPathRows();
+			for (int col = 0; col < cols; col++)
+				path.add(getNode(pathRows[col], col));
+			keepFallbackPath(new ShortestPath(path, solver.getMinimumWeight(), 0));
+		}
+		if (solver.getLowerBound() != Long.MIN_VALUE)
+			boundUnfinished(solver.getLowerBound());
+		return minimumPath;
+	}
+
+	/**
+	 * Walks from the lightest source towards the destination, taking at each move the lightest cell among the
+	 * cells one move closer to it (the smallest index on a tie). With several destinations, which is only done in
+	 * the standard setting, the walk goes to the last column, where every cell is a destination. This takes as
+	 * many moves as the path has nodes, and the rows and the columns are never multiplied, so that it also walks
+	 * a matrix of more than 2^31 cells
+	 * @return the path walked and its weight, null if the walk cannot be done or does not end on a destination
+	 */
+	@Override
+	protected ShortestPath findFallbackPath() {
+		List<Node> sources = getSources();
+		List<Node> destinations = getDestinations();
+		List<Integer> sourceWeights = getSourceWeights();
+		if (sources == null || sources.isEmpty() || destinations == null || destinations.isEmpty() || sourceWeights == null)
+			return null;
+		boolean toLastColumn = destinations.size() > 1;
+		if (toLastColumn && stencil != NeighborStencil.STANDARD)
+			return null;
+		int source = 0;
+		for (int i = 1; i < sources.size(); i++) {
+			if (sourceWeights.get(i) < sourceWeights.get(source))
+				source = i;
+		}
+		int row = sources.get(source).getRow()-1;
+		int col = sources.get(source).getColumn()-1;
+		int goalRow = destinations.get(0).getRow()-1;
+		int goalCol = destinations.get(0).getColumn()-1;
+		long weight = sourceWeights.get(source);
+		List<Node> path = new LinkedList<Node>();
+		path.add(getNode(row, col));
+		for (int moves = toLastColumn ? cols-1 - col : getMoveCount(row, col, goalRow, goalCol); moves > 0; moves--) {
+			checkCancelled();
+			int nextRow = -1;
+			int nextCol = -1;
+			int nextWeight = 0;
+			for (int slot = 0; slot < stencil.size(); slot++) {
+				int neighborRow = (row + stencil.getRowOffset(slot) + rows) % rows;
+				int neighborCol = col + stencil.getColumnOffset(slot);
+				if (stencil.wrapsColumns())
+					neighborCol = (neighborCol + cols) % cols;
+				else if (neighborCol < 0 || neighborCol >= cols)
+					continue;
+				if (!toLastColumn && getMoveCount(neighborRow, neighborCol, goalRow, goalCol) != moves-1)
+					continue;
+				int neighborWeight = weightMatrix.get(neighborRow, neighborCol);
+				if (nextRow == -1 || neighborWeight < nextWeight
+						|| (neighborWeight == nextWeight && (neighborRow < nextRow || (neighborRow == nextRow && neighborCol < nextCol)))) {
+					nextRow = neighborRow;
+					nextCol = neighborCol;
+					nextWeight = neighborWeight;
+				}
+			}
+			if (nextRow == -1)
+				return null;
+			row = nextRow;
+			col = nextCol;
+			weight += nextWeight;
+			path.add(getNode(row, col));
+		}
+		for (Node destination : destinations) {
+			if (destination.getRow()-1 == row && destination.getColumn()-1 == col)
+				return new ShortestPath(path, weight, 0);
+		}
+		return null;
+	}
+
+	/**
+	 * @param row zero based row of the cell
+	 * @param col zero based column of the cell
+	 * @return the node for the cell
+	 */
+	public Node getNode(int row, int col) {
+		if (nodes == null)
+			return new Node(row+1, col+1);
+		int index = row * cols + col;
+		Node node = nodes.get(index);
+		if (node == null) {
+			nodes.compareAndSet(index, null, new Node(row+1, col+1));
+			node = nodes.get(index);
+		}
+		return node;
+	}
+
+	/**
+	 * Finds the shortest path between two cells without changing the graph, see Graph.findShortestPath
+	 * @param sourceRow zero based row of the source
+	 * @param sourceCol zero based column of the source
+	 * @param destinationRow zero based row of the destination
+	 * @param destinationCol zero based column of the destination
+	 * @return the path and its weight, including the weight of the source
+	 */
+	public ShortestPath findShortestPath(int sourceRow, int sourceCol, int destinationRow, int destinationCol) {
+		ShortestPathTreeCache cache = treeCache;
+		if (cache == null && treeStore == null)
+			return findShortestPath(getNode(sourceRow, sourceCol), weightMatrix.get(sourceRow, sourceCol), getNode(destinationRow, destinationCol));
+		int source = sourceRow * cols + sourceCol;
+		ShortestPathTree tree = cache != null ? cache.get(this, source) : findShortestPathTree(source);
+		int destination = destinationRow * cols + destinationCol;
+		long weight = tree.getDistance(destination) + weightMatrix.get(sourceRow, sourceCol);
+		return toShortestPath(tree.pathTo(destination), weight, tree.getSettledNodesCount());
+	}
+
+	/**
+	 * Reads the shortest path tree of a source from the tree store, or grows it over every cell the source can
+	 * reach and saves it to the store
+	 * @param source index of the source
+	 * @return the tree
+	 */
+	ShortestPathTree findShortestPathTree(int source) {
+		ShortestPathTreeStore store = treeStore;
+		String mode = stencil.name();
+		try {
+			ShortestPathTree tree = store == null ? null : store.load(getContentHash(), mode, source, getNodeCount());
+			if (tree != null)
+				return tree;
+			SolverWorkspace workspace = takeWorkspace();
+			try {
+				findShortestPathTree(source, new int[0], workspace);
+				tree = new ShortestPathTree(source, workspace);
+			}
+			finally {
+				giveBackWorkspace(workspace);
+			}
+			if (store != null)
+				store.save(getContentHash(), mode, tree);
+			return tree;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Cannot use the tree store " + store.getDirectory(), e);
+		}
+	}
+
+	/**
+	 * @param row zero based row of the cell
+	 * @param col zero based column of the cell
+	 * @return the weight of the cell
+	 */
+	public int getWeight(int row, int col) {
+		return weightMatrix.get(row, col);
+	}
+
+	/**
+	 * @param node index of a node
+	 * @return the number of moves of the stencil
+	 */
+	@Override
+	protected int getDegree(int node) {
+		return stencil.size();
+	}
+
+	/**
+	 * Rows always wrap around and columns only wrap around if the stencil allows it
+	 * @param node index of a node
+	 * @param slot a move of the stencil
+	 * @return the index of the cell reached by the move, -1 if the move goes out of the matrix
+	 */
+	@Override
+	protected int getNeighbor(int node, int slot) {
+		int row = (node / cols + stencil.getRowOffset(slot) + rows) % rows;
+		int col = node % cols + stencil.getColumnOffset(slot);
+		if (stencil.wrapsColumns())
+			col = (col + cols) % cols;
+		else if (col < 0 || col >= cols)
+			return -1;
+		return row * cols + col;
+	}
+
+	/**
+	 * @param node index of a node
+	 * @param slot a move of the stencil
+	 * @return the weight to go to the cell reached by the move, which is the weight of that cell
+	 */
+	@Override
+	protected int getNeighborDistance(int node, int slot) {
+		int neighbor = getNeighbor(node, slot);
+		return weightMatrix.get(neighbor);
+	}
+
+	@Override
+	protected int getReverseDegree(int node) {
+		return stencil.size();
+	}
+
+	/**
+	 * @param node index of a node
+	 * @param slot a move of the stencil
+	 * @return the index of the cell the move comes from, -1 if it would come from outside the matrix
+	 */
+	@Override
+	protected int getReverseNeighbor(int node, int slot) {
+		int row = (node / cols - stencil.getRowOffset(slot) + rows) % rows;
+		int col = node % cols - stencil.getColumnOffset(slot);
+		if (stencil.wrapsColumns())
+			col = (col + cols) % cols;
+		else if (col < 0 || col >= cols)
+			return -1;
+		return row * cols + col;
+	}
+
+	/**
+	 * @param node index of a node
+	 * @param slot a move of the stencil
+	 * @return the weight to arrive at the node, which is the weight of its own cell
+	 */
+	@Override
+	protected int getReverseNeighborDistance(int node, int slot) {
+		return weightMatrix.get(node);
+	}
+
+	/**
+	 * Every move changes the row and the column by at most one, so going from a cell to the destination takes
+	 * at least the Chebyshev distance between them in moves, on a cylinder (rows wrap around) or on a torus (when
+	 * the columns wrap around too), and every move costs at least the smallest weight of the matrix
+	 * @param node index of a node
+	 * @param destination index of the destination
+	 * @return the smallest weight of the matrix times the number of moves needed to reach the destination
+	 */
+	@Override
+	protected long getLowerBound(int node, int destination) {
+		if (minimumCellWeight == -1) {
+			int minimum = Integer.MAX_VALUE;
+			for (int index = 0; index < rows * cols; index++)
+				minimum = Math.min(minimum, weightMatrix.get(index));
+			minimumCellWeight = Math.max(minimum, 0);
+		}
+		return (long) minimumCellWeight * getMoveCount(node / cols, node % cols, destination / cols, destination % cols);
+	}
+
+	/**
+	 * @return the Chebyshev distance between two cells, on a cylinder or on a torus when the columns wrap around
+	 */
+	private int getMoveCount(int row, int col, int destinationRow, int destinationCol) {
+		int rowDistance = Math.abs(row - destinationRow);
+		rowDistance = Math.min(rowDistance, rows - rowDistance);
+		int colDistance = Math.abs(col - destinationCol);
+		if (stencil.wrapsColumns())
+			colDistance = Math.min(colDistance, cols - colDistance);
+		return Math.max(rowDistance, colDistance);
+	}
+
+	/**
+	 * The index of a node is row * columns + column, so there is nothing to index
+	 */
+	@Override
+	protected void indexNodes() {
+	}
+
+	@Override
+	protected int getMatrixColumns() {
+		return cols;
+	}
+
+	@Override
+	protected int getNodeCount() {
+		if (nodes == null)
+			throw new IllegalStateException("A matrix of more than 2^31 cells can only be solved by sweeping the columns");
+		return nodes.length();
+	}
+
+	@Override
+	protected int indexOf(Node node) {
+		return (node.getRow()-1) * cols + node.getColumn()-1;
+	}
+
+	@Override
+	protected Node nodeAt(int index) {
+		return getNode(index / cols, index % cols);
+	}
+}
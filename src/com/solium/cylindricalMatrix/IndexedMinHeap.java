@@ -0,0 +1,158 @@
+package com.solium.cylindricalMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node indices (0 to capacity-1) keyed by their distance from the source, with decrease-key.
+ * Keys are longs so that a distance can be combined with a secondary key (e.g. the source a node is reached from).
+ * Nodes with the same distance come out in the order of their indices, which is the order of their rows and
+ * then of their columns, or column by column when the heap is given the number of columns of the matrix: in the
+ * Standard version a node then comes out after every node of the column before it with the same distance, so that
+ * Dijkstra has seen all its predecessors of that distance before it is solved, even through edges of weight 0
+ */
+
+public class IndexedMinHeap implements NodeQueue {
+
+	private final int[] heap; //node indices in heap order
+	private final int[] position; //position of each node in the heap, -1 if the node is not in the heap
+	private final long[] key; //distance of each node in the heap
+	private final int columns; //number of columns of the matrix the nodes with the same distance come out by, 0 for none
+	private int size;
+
+	/**
+	 * @param capacity number of nodes, node indices go from 0 to capacity-1
+	 */
+	public IndexedMinHeap(int capacity) {
+		this(capacity, 0);
+	}
+
+	/**
+	 * @param capacity number of nodes, node indices go from 0 to capacity-1
+	 * @param columns number of columns of the matrix whose cell of row i / columns and column i % columns is the
+	 * node i, so that the nodes with the same distance come out by column and then by index, 0 to take them by index
+	 */
+	public IndexedMinHeap(int capacity, int columns) {
+		this.columns = columns;
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+		this.key = new long[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	public int capacity() {
+		return heap.length;
+	}
+
+	public int columns() {
+		return columns;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int node) {
+		return position[node] != -1;
+	}
+
+	/**
+	 * @param node
+	 * @return the distance of a node in the heap
+	 */
+	public long getKey(int node) {
+		return key[node];
+	}
+
+	/**
+	 * Inserts a node, or decreases its distance if it is already in the heap with a greater distance
+	 * @param node
+	 * @param distance
+	 */
+	public void push(int node, long distance) {
+		int i = position[node];
+		if (i == -1) {
+			i = size++;
+			heap[i] = node;
+			position[node] = i;
+		}
+		else if (distance >= key[node])
+			return;
+		key[node] = distance;
+		siftUp(i);
+	}
+
+	/**
+	 * @return the node with the shortest distance (and the first one in the order of the ties), without removing it
+	 */
+	public int peek() {
+		return heap[0];
+	}
+
+	/**
+	 * Removes the node with the shortest distance (and the first one in the order of the ties)
+	 * @return the removed node
+	 */
+	public int poll() {
+		int minimum = heap[0];
+		position[minimum] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return minimum;
+	}
+
+	/**
+	 * Removes all the nodes, only the positions of the nodes still in the heap are reset
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			position[heap[i]] = -1;
+		size = 0;
+	}
+
+	private void siftUp(int i) {
+		int node = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!less(node, heap[parent]))
+				break;
+			heap[i] = heap[parent];
+			position[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+	private void siftDown(int i) {
+		int node = heap[i];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && less(heap[child + 1], heap[child]))
+				child++;
+			if (!less(heap[child], node))
+				break;
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+	private boolean less(int a, int b) {
+		if (key[a] != key[b])
+			return key[a] < key[b];
+		if (columns != 0 && a % columns != b % columns)
+			return a % columns < b % columns;
+		return a < b;
+	}
+}
@@ -0,0 +1,60 @@
+package com.solium.cylindricalMatrix;
+
+/**
+ * The moves allowed from a cell of the matrix for each version of the problem, as (row, column) offsets.
+ * The first and last rows are always adjacent, the first and last columns are only adjacent for Bonus2
+ *
+ * Standard: forward only, from column j to column j+1 in the same or a diagonal row
+ * Bonus1: the eight cardinal directions (N, E, W, S, NE, SE, SW, NW)
+ * Bonus2: the eight cardinal directions, and the extreme west and east columns are adjacent as well
+ */
+
+public enum NeighborStencil {
+
+	STANDARD(new int[] {-1, 0, 1}, new int[] {1, 1, 1}, false),
+	BONUS1(new int[] {-1, -1, -1, 0, 0, 1, 1, 1}, new int[] {-1, 0, 1, -1, 1, -1, 0, 1}, false),
+	BONUS2(new int[] {-1, -1, -1, 0, 0, 1, 1, 1}, new int[] {-1, 0, 1, -1, 1, -1, 0, 1}, true);
+
+	private final int[] rowOffsets;
+	private final int[] columnOffsets;
+	private final boolean wrapsColumns;
+
+	private NeighborStencil(int[] rowOffsets, int[] columnOffsets, boolean wrapsColumns) {
+		this.rowOffsets = rowOffsets;
+		this.columnOffsets = columnOffsets;
+		this.wrapsColumns = wrapsColumns;
+	}
+
+	/**
+	 * @return the number of moves allowed from a cell
+	 */
+	public int size() {
+		return rowOffsets.length;
+	}
+
+	public int getRowOffset(int move) {
+		return rowOffsets[move];
+	}
+
+	public int getColumnOffset(int move) {
+		return columnOffsets[move];
+	}
+
+	public boolean wrapsColumns() {
+		return wrapsColumns;
+	}
+
+	/**
+	 * @param header the header row of an input file (S, B1, B2)
+	 * @return the stencil for the given header, null if the header is not valid
+	 */
+	public static NeighborStencil forHeader(String header) {
+		if ("S".equals(header))
+			return STANDARD;
+		if ("B1".equals(header))
+			return BONUS1;
+		if ("B2".equals(header))
+			return BONUS2;
+		return null;
+	}
+}
@@ -6,23 +6,53 @@ import java.util.List;
 /**
  * A node in a graph has an id, 
  * where the id is constructed by the location of the node in the input matrix (row, column)
+ * The row and the column are kept as ints, and the i,j string of the id is only made for display
  * A node has outboundEdges which make it easy to find its adjacent nodes 
  */
 
-public class Node {
+public class Node implements Comparable<Node> {
 
-	private String id;
-	//TODO: setting outbound edges on the node helps the performance for finding adjacent nodes in Dijkstra algorithm 
+	private final int row;
+	private final int column;
+	private int index = -1; //position of the node in the index of the graph it belongs to
+	//Graph finds adjacent nodes with its own adjacency index of the edges, outbound edges are only kept for callers that set them
 	private List<Edge> outboundEdges;
 	
 	public Node(String id) {
-		if (!doesIdFollowConventions(id))
+		int[] rowAndColumn = parseId(id);
+		if (rowAndColumn == null)
 			throw new IllegalArgumentException();
-		this.id = id;
+		this.row = rowAndColumn[0];
+		this.column = rowAndColumn[1];
+	}
+	
+	/**
+	 * @param row the row number of the id (one based for the matrix cells)
+	 * @param column the column number of the id (one based for the matrix cells)
+	 */
+	public Node(int row, int column) {
+		this.row = row;
+		this.column = column;
 	}
 
 	public String getId() {
-		return id;
+		return row + "," + column;
+	}
+	
+	public int getRow() {
+		return row;
+	}
+	
+	public int getColumn() {
+		return column;
+	}
+	
+	int getIndex() {
+		return index;
+	}
+	
+	void setIndex(int index) {
+		this.index = index;
 	}
 
 	public List<Edge> getOutboundEdges() {
@@ -33,31 +63,42 @@ public class Node {
 		this.outboundEdges = outgoingEdges;
 	}
 	
+	/**
+	 * Nodes are ordered by row and then by column, so that ties between paths of the same weight are broken
+	 * the same way for any size of matrix ("2,1" comes before "10,1")
+	 */
+	public int compareTo(Node other) {
+		if (row != other.row)
+			return row < other.row ? -1 : 1;
+		if (column != other.column)
+			return column < other.column ? -1 : 1;
+		return 0;
+	}
+	
 	/**
 	 * For this project, we use i,j format for the ids where i is the row number and j is the column number
 	 * @param idForCheck
-	 * @return
+	 * @return the row and the column of the id, null if the id does not follow the format
 	 */
-	private boolean doesIdFollowConventions(String idForCheck) {
+	private static int[] parseId(String idForCheck) {
 		if (idForCheck == null)
-			return false;
+			return null;
 		int commaIndex = idForCheck.indexOf(",");
 		if (commaIndex == -1)
-			return false;
-		String i = idForCheck.substring(0, commaIndex);
-		String j = idForCheck.substring(commaIndex+1, idForCheck.length());
+			return null;
 		try {
-			Double.parseDouble(i);
-			Double.parseDouble(j);
+			int[] rowAndColumn = new int[2];
+			rowAndColumn[0] = Integer.parseInt(idForCheck.substring(0, commaIndex).trim());
+			rowAndColumn[1] = Integer.parseInt(idForCheck.substring(commaIndex+1).trim());
+			return rowAndColumn;
 		}
 		catch(NumberFormatException nfe) {  
-			return false;  
+			return null;  
 		}  
-		return true;
 	}
 	
 	@Override
 	public String toString() {
-		return "("+id+")";
+		return "(" + row + "," + column + ")";
 	}
 }
@@ -0,0 +1,35 @@
+package com.solium.cylindricalMatrix;
+
+/**
+ * Priority queue of node indices used by Dijkstra for the nodes reached but not solved yet.
+ * A node comes out with the smallest key first, and in case of a tie with the smallest index (the order of the
+ * rows and then of the columns), so that every queue gives the same shortest path
+ */
+
+public interface NodeQueue {
+
+	/**
+	 * @return the number of nodes, node indices go from 0 to capacity-1
+	 */
+	int capacity();
+
+	boolean isEmpty();
+
+	/**
+	 * Inserts a node, or decreases its key if it is already in the queue with a greater key
+	 * @param node
+	 * @param key
+	 */
+	void push(int node, long key);
+
+	/**
+	 * Removes the node with the smallest key
+	 * @return the removed node
+	 */
+	int poll();
+
+	/**
+	 * Removes all the nodes
+	 */
+	void clear();
+}
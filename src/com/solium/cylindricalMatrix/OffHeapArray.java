@@ -0,0 +1,98 @@
+package com.solium.cylindricalMatrix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Bytes kept outside the Java heap and read by a long offset, so that they are neither limited to the 2^31
+ * elements of an array nor scanned by the garbage collector. The bytes are split in chunks of direct or mapped
+ * buffers (1GB by default), values are little endian and a value of 2 or 4 bytes at an offset multiple of its size
+ * never crosses two chunks
+ */
+
+class OffHeapArray {
+
+	static final int CHUNK_SHIFT = 30;
+
+	private final ByteBuffer[] chunks;
+	private final int chunkShift;
+	private final long chunkMask;
+	private final long size;
+
+	private OffHeapArray(ByteBuffer[] chunks, int chunkShift, long size) {
+		this.chunks = chunks;
+		this.chunkShift = chunkShift;
+		this.chunkMask = (1L << chunkShift) - 1;
+		this.size = size;
+	}
+
+	/**
+	 * @param size number of bytes, all 0
+	 * @param chunkShift log2 of the size of a chunk, at least 2 and at most 30
+	 * @return the bytes, in direct buffers
+	 */
+	static OffHeapArray allocate(long size, int chunkShift) {
+		ByteBuffer[] chunks = new ByteBuffer[chunkCount(size, chunkShift)];
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			int chunkSize = (int) Math.min(1L << chunkShift, size - ((long) chunk << chunkShift));
+			chunks[chunk] = ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return new OffHeapArray(chunks, chunkShift, size);
+	}
+
+	/**
+	 * @param channel file to map, read only
+	 * @param position offset of the first byte in the file
+	 * @param size number of bytes
+	 * @return the bytes of the file, the mapping stays valid once the file is closed
+	 * @throws IOException
+	 */
+	static OffHeapArray map(FileChannel channel, long position, long size) throws IOException {
+		ByteBuffer[] chunks = new ByteBuffer[chunkCount(size, CHUNK_SHIFT)];
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			long start = (long) chunk << CHUNK_SHIFT;
+			long chunkSize = Math.min(1L << CHUNK_SHIFT, size - start);
+			chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, position + start, chunkSize).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return new OffHeapArray(chunks, CHUNK_SHIFT, size);
+	}
+
+	private static int chunkCount(long size, int chunkShift) {
+		if (chunkShift < 2 || chunkShift > CHUNK_SHIFT)
+			throw new IllegalArgumentException("The size of a chunk must be between 4 bytes and 1GB");
+		long count = (size + (1L << chunkShift) - 1) >>> chunkShift;
+		if (size < 0 || count > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Invalid size " + size);
+		return (int) count;
+	}
+
+	long size() {
+		return size;
+	}
+
+	byte getByte(long offset) {
+		return chunks[(int) (offset >>> chunkShift)].get((int) (offset & chunkMask));
+	}
+
+	void putByte(long offset, byte value) {
+		chunks[(int) (offset >>> chunkShift)].put((int) (offset & chunkMask), value);
+	}
+
+	short getShort(long offset) {
+		return chunks[(int) (offset >>> chunkShift)].getShort((int) (offset & chunkMask));
+	}
+
+	void putShort(long offset, short value) {
+		chunks[(int) (offset >>> chunkShift)].putShort((int) (offset & chunkMask), value);
+	}
+
+	int getInt(long offset) {
+		return chunks[(int) (offset >>> chunkShift)].getInt((int) (offset & chunkMask));
+	}
+
+	void putInt(long offset, int value) {
+		chunks[(int) (offset >>> chunkShift)].putInt((int) (offset & chunkMask), value);
+	}
+}
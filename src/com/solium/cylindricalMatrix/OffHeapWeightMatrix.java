@@ -0,0 +1,178 @@
+package com.solium.cylindricalMatrix;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Weight matrix kept outside the Java heap, row by row, and read by a long index so that a matrix can have more
+ * than the 2^31 cells of an array (up to 2^31 rows of 2^31 columns). Like FlatWeightMatrix, the weights take 1 or
+ * 2 bytes (unsigned) while they allow it and 4 bytes otherwise: the parser widens the matrix the first time a row
+ * does not fit, which copies the cells to new buffers.
+ *
+ * The rows can be set by several threads at the same time as long as they set different rows. The weights must
+ * all be set before the matrix is read
+ */
+
+public class OffHeapWeightMatrix implements WritableWeightMatrix {
+
+	private final int rows;
+	private final int cols;
+	private final int chunkShift;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock(); //setting rows shares it, widening takes it alone
+	private int width;
+	private OffHeapArray cells;
+
+	/**
+	 * @param rows
+	 * @param cols
+	 */
+	public OffHeapWeightMatrix(int rows, int cols) {
+		this(rows, cols, OffHeapArray.CHUNK_SHIFT);
+	}
+
+	/**
+	 * @param rows
+	 * @param cols
+	 * @param chunkShift log2 of the number of bytes of a buffer
+	 */
+	OffHeapWeightMatrix(int rows, int cols, int chunkShift) {
+		this(OffHeapArray.allocate((long) rows * cols, chunkShift), rows, cols, 1, chunkShift);
+	}
+
+	private OffHeapWeightMatrix(OffHeapArray cells, int rows, int cols, int width, int chunkShift) {
+		this.cells = cells;
+		this.rows = rows;
+		this.cols = cols;
+		this.width = width;
+		this.chunkShift = chunkShift;
+	}
+
+	/**
+	 * Reads the weights in place from a file, for instance the payload of a binary matrix file larger than 2GB
+	 * @param channel file to map, read only
+	 * @param position offset of the first weight in the file
+	 * @param rows
+	 * @param cols
+	 * @param width number of bytes of a weight: 1 or 2 for unsigned weights, 4 for signed weights
+	 * @return the matrix, its rows cannot be set
+	 * @throws IOException
+	 */
+	public static OffHeapWeightMatrix map(FileChannel channel, long position, int rows, int cols, int width) throws IOException {
+		if (width != 1 && width != 2 && width != 4)
+			throw new IllegalArgumentException("The width of a weight must be 1, 2 or 4 bytes");
+		OffHeapArray cells = OffHeapArray.map(channel, position, (long) rows * cols * width);
+		return new OffHeapWeightMatrix(cells, rows, cols, width, OffHeapArray.CHUNK_SHIFT);
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return cols;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the number of cells, rows * columns
+	 */
+	public long getCellCount() {
+		return (long) rows * cols;
+	}
+
+	public int get(int row, int col) {
+		return get((long) row * cols + col);
+	}
+
+	public int get(int index) {
+		return get((long) index);
+	}
+
+	/**
+	 * @param index row * columns + column of the cell
+	 * @return the weight of the cell
+	 */
+	public int get(long index) {
+		switch (width) {
+		case 1:
+			return cells.getByte(index) & 0xff;
+		case 2:
+			return cells.getShort(index << 1) & 0xffff;
+		default:
+			return cells.getInt(index << 2);
+		}
+	}
+
+	public void setRow(int row, int[] weights) {
+		int needed = widthOf(weights);
+		lock.readLock().lock();
+		try {
+			while (needed > width) {
+				lock.readLock().unlock();
+				try {
+					widen(needed);
+				}
+				finally {
+					lock.readLock().lock();
+				}
+			}
+			long start = (long) row * cols;
+			for (int col = 0; col < cols; col++)
+				put(cells, width, start + col, weights[col]);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param weights
+	 * @return the number of bytes needed by the weights
+	 */
+	private int widthOf(int[] weights) {
+		int needed = 1;
+		for (int col = 0; col < cols; col++) {
+			int weight = weights[col];
+			if (weight < 0 || weight > 0xffff)
+				return 4;
+			if (weight > 0xff)
+				needed = 2;
+		}
+		return needed;
+	}
+
+	/**
+	 * Copies the weights set so far to wider buffers
+	 * @param needed number of bytes of a weight needed
+	 */
+	private void widen(int needed) {
+		lock.writeLock().lock();
+		try {
+			if (needed <= width)
+				return;
+			long count = getCellCount();
+			OffHeapArray wider = OffHeapArray.allocate(count * needed, chunkShift);
+			for (long index = 0; index < count; index++)
+				put(wider, needed, index, get(index));
+			cells = wider;
+			width = needed;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private static void put(OffHeapArray cells, int width, long index, int weight) {
+		if (width == 1)
+			cells.putByte(index, (byte) weight);
+		else if (width == 2)
+			cells.putShort(index << 1, (short) weight);
+		else
+			cells.putInt(index << 2, weight);
+	}
+}
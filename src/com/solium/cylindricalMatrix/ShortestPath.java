@@ -0,0 +1,63 @@
+package com.solium.cylindricalMatrix;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a shortest path query: the nodes of the path from the source to the destination and its weight,
+ * including the weight of the source. A result is never changed once it is made, so it can be handed from one
+ * thread to another
+ */
+
+public class ShortestPath {
+
+	private final List<Node> path;
+	private final long weight;
+	private final int settledNodesCount;
+
+	/**
+	 * @param path nodes from the source to the destination, empty if the destination cannot be reached
+	 * @param weight weight of the path, Long.MAX_VALUE if the destination cannot be reached
+	 * @param settledNodesCount number of nodes solved to find the path
+	 */
+	public ShortestPath(List<Node> path, long weight, int settledNodesCount) {
+		this.path = Collections.unmodifiableList(path);
+		this.weight = weight;
+		this.settledNodesCount = settledNodesCount;
+	}
+
+	public List<Node> getPath() {
+		return path;
+	}
+
+	public long getWeight() {
+		return weight;
+	}
+
+	public int getSettledNodesCount() {
+		return settledNodesCount;
+	}
+
+	/**
+	 * @return true if the destination can be reached from the source
+	 */
+	public boolean isFound() {
+		return !path.isEmpty();
+	}
+
+	/**
+	 * @param path
+	 * @return the nodes of a path in the display format of the program: (i,j) (i,j) ...
+	 */
+	public static String format(List<Node> path) {
+		String stringArray = Arrays.toString(path.toArray());
+		String pathForDisplay = stringArray.substring(1, stringArray.length()-1);
+		return pathForDisplay.replace("),", ")");
+	}
+
+	@Override
+	public String toString() {
+		return format(path);
+	}
+}
@@ -0,0 +1,109 @@
+package com.solium.cylindricalMatrix;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Shortest paths from one source to every node of a graph: the distance and the predecessor of each node, as
+ * they were when Dijkstra's algorithm had solved all the nodes it could reach. A tree is never changed once it is
+ * made, so it can be cached and read by several threads. The arrays are buffers, so that a tree can be read
+ * straight from a file mapped in memory (see ShortestPathTreeStore)
+ */
+
+public class ShortestPathTree {
+
+	private final int source;
+	private final LongBuffer distance;
+	private final IntBuffer predecessor;
+	private final int settledNodesCount;
+
+	/**
+	 * Copies the distances and the predecessors of a search that has solved all the nodes reached from the source
+	 * @param source index of the source
+	 * @param workspace state of the search
+	 */
+	public ShortestPathTree(int source, SolverWorkspace workspace) {
+		int capacity = workspace.capacity();
+		long[] distances = new long[capacity];
+		int[] predecessors = new int[capacity];
+		for (int node = 0; node < capacity; node++) {
+			distances[node] = workspace.getDistance(node);
+			predecessors[node] = workspace.getPredecessor(node);
+		}
+		this.source = source;
+		this.distance = LongBuffer.wrap(distances);
+		this.predecessor = IntBuffer.wrap(predecessors);
+		this.settledNodesCount = workspace.getSolvedCount();
+	}
+
+	/**
+	 * @param source index of the source
+	 * @param distance distance of each node from the source, SolverWorkspace.UNREACHED for the nodes not reached
+	 * @param predecessor predecessor of each node, -1 for the source and the nodes not reached
+	 * @param settledNodesCount number of nodes solved to grow the tree
+	 */
+	ShortestPathTree(int source, LongBuffer distance, IntBuffer predecessor, int settledNodesCount) {
+		this.source = source;
+		this.distance = distance;
+		this.predecessor = predecessor;
+		this.settledNodesCount = settledNodesCount;
+	}
+
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * @return the number of nodes solved to grow the tree
+	 */
+	public int getSettledNodesCount() {
+		return settledNodesCount;
+	}
+
+	/**
+	 * @param node
+	 * @return the distance of a node from the source, SolverWorkspace.UNREACHED if it cannot be reached
+	 */
+	public long getDistance(int node) {
+		return distance.get(node);
+	}
+
+	/**
+	 * @param node
+	 * @return the predecessor of a node, -1 for the source and the nodes not reached
+	 */
+	public int getPredecessor(int node) {
+		return predecessor.get(node);
+	}
+
+	/**
+	 * @return the number of nodes of the graph of the tree
+	 */
+	public int getNodeCount() {
+		return distance.limit();
+	}
+
+	/**
+	 * @return the number of bytes taken by the distances and the predecessors
+	 */
+	public long getSizeInBytes() {
+		return 12L * distance.limit();
+	}
+
+	/**
+	 * @param destination index of the destination
+	 * @return the indices of the nodes to go from the source to the destination, null if the destination
+	 * cannot be reached
+	 */
+	public int[] pathTo(int destination) {
+		if (distance.get(destination) == SolverWorkspace.UNREACHED)
+			return null;
+		int length = 0;
+		for (int step = destination; step != -1; step = predecessor.get(step))
+			length++;
+		int[] path = new int[length];
+		for (int step = destination; step != -1; step = predecessor.get(step))
+			path[--length] = step;
+		return path;
+	}
+}
@@ -0,0 +1,197 @@
+package com.solium.cylindricalMatrix;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of shortest path trees, keyed by the content of the matrix, the version of the problem and the
+ * source. The least recently used trees are evicted when the cache holds more trees, or more bytes, than its
+ * limits. When several threads ask for a tree that is not cached, only the first one grows it and the others
+ * wait for its result. The cache can be shared by the graphs of several matrices
+ */
+
+public class ShortestPathTreeCache {
+
+	private final int maximumTrees;
+	private final long maximumBytes;
+	private final LinkedHashMap<Key, ShortestPathTree> trees = new LinkedHashMap<Key, ShortestPathTree>(16, 0.75f, true);
+	private final Map<Key, FutureTask<ShortestPathTree>> pending = new HashMap<Key, FutureTask<ShortestPathTree>>();
+	private long bytes; //bytes taken by the cached trees
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param maximumTrees largest number of trees kept
+	 * @param maximumBytes largest number of bytes taken by the trees kept
+	 */
+	public ShortestPathTreeCache(int maximumTrees, long maximumBytes) {
+		if (maximumTrees < 1 || maximumBytes < 1)
+			throw new IllegalArgumentException("The cache must be able to keep at least one tree");
+		this.maximumTrees = maximumTrees;
+		this.maximumBytes = maximumBytes;
+	}
+
+	/**
+	 * @return the number of trees found in the cache, or being grown by another thread
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of trees grown because they were not in the cache
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	public synchronized long getSizeInBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Forgets every tree, the counters are kept
+	 */
+	public synchronized void clear() {
+		trees.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * @param graph
+	 * @param source index of the source
+	 * @return the shortest path tree of the source, grown by the graph if it is not in the cache
+	 */
+	public ShortestPathTree get(final GridGraph graph, final int source) {
+		Key key = new Key(graph.getContentHash(), graph.getStencil().name(), source);
+		FutureTask<ShortestPathTree> task;
+		boolean grow = false;
+		synchronized (this) {
+			ShortestPathTree tree = trees.get(key);
+			if (tree != null) {
+				hits.incrementAndGet();
+				return tree;
+			}
+			task = pending.get(key);
+			if (task == null) {
+				task = new FutureTask<ShortestPathTree>(new Callable<ShortestPathTree>() {
+					public ShortestPathTree call() {
+						return graph.findShortestPathTree(source);
+					}
+				});
+				pending.put(key, task);
+				grow = true;
+				misses.incrementAndGet();
+			}
+			else
+				hits.incrementAndGet();
+		}
+		if (grow) {
+			task.run();
+			synchronized (this) {
+				pending.remove(key);
+				if (!task.isCancelled())
+					keep(key, task);
+			}
+		}
+		return waitFor(task);
+	}
+
+	/**
+	 * Adds a tree grown without an error, and evicts the least recently used trees until the cache is within its limits
+	 * @param key
+	 * @param task
+	 */
+	private void keep(Key key, FutureTask<ShortestPathTree> task) {
+		ShortestPathTree tree;
+		try {
+			tree = task.get();
+		}
+		catch (Exception e) {
+			// the thread that grew the tree gets the error from waitFor
+			return;
+		}
+		trees.put(key, tree);
+		bytes += tree.getSizeInBytes();
+		Iterator<ShortestPathTree> leastRecentlyUsed = trees.values().iterator();
+		// the tree just added is kept even if it is larger than the byte limit on its own
+		while (trees.size() > 1 && (trees.size() > maximumTrees || bytes > maximumBytes)) {
+			bytes -= leastRecentlyUsed.next().getSizeInBytes();
+			leastRecentlyUsed.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @param task
+	 * @return the tree grown by the task, once it is done
+	 */
+	private ShortestPathTree waitFor(FutureTask<ShortestPathTree> task) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				}
+				catch (InterruptedException e) {
+					// the tree is needed anyway, the interruption is given back to the thread once it is there
+					interrupted = true;
+				}
+				catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException) e.getCause();
+					if (e.getCause() instanceof Error)
+						throw (Error) e.getCause();
+					throw new IllegalStateException(e.getCause().getMessage());
+				}
+			}
+		}
+		finally {
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Identifies a tree: the content of the matrix, the version of the problem and the source
+	 */
+	private static class Key {
+		private final long contentHash;
+		private final String mode;
+		private final int source;
+
+		Key(long contentHash, String mode, int source) {
+			this.contentHash = contentHash;
+			this.mode = mode;
+			this.source = source;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * (int) (contentHash ^ (contentHash >>> 32)) + mode.hashCode()) + source;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return contentHash == other.contentHash && source == other.source && mode.equals(other.mode);
+		}
+	}
+}
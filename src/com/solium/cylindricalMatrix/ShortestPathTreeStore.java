@@ -0,0 +1,164 @@
+package com.solium.cylindricalMatrix;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Directory of shortest path trees saved by earlier runs, one file per matrix hash, version of the problem and
+ * source. A file is read back by mapping it in memory, the distances and the predecessors are used where they are
+ * in the file without being copied.
+ *
+ * Layout of a file, little endian:
+ * int magic "SPT2", int number of nodes, int source, int number of settled nodes, long matrix hash,
+ * then the distance of each node as a long, then the predecessor of each node as an int
+ */
+
+public class ShortestPathTreeStore {
+
+	private static final int MAGIC = 0x53505432;
+	private static final int HEADER_BYTES = 24;
+	private static final long MAXIMUM_FILE_BYTES = Integer.MAX_VALUE; //a file is read and written as a single buffer
+
+	private final File directory;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param directory directory of the tree files, created if it does not exist
+	 * @throws IOException if the directory cannot be created
+	 */
+	public ShortestPathTreeStore(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create the tree store directory " + directory);
+		this.directory = directory;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return the number of trees read from a file
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of trees looked for without a valid file
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @param contentHash hash of the matrix
+	 * @param mode version of the problem
+	 * @param source index of the source
+	 * @param nodeCount number of nodes of the graph
+	 * @return the tree saved for the key, null if there is none or if its file does not hold a tree of the key
+	 * @throws IOException if the file cannot be read
+	 */
+	public ShortestPathTree load(long contentHash, String mode, int source, int nodeCount) throws IOException {
+		File file = fileOf(contentHash, mode, source);
+		long length = fileBytes(nodeCount);
+		if (length > MAXIMUM_FILE_BYTES || !file.isFile() || file.length() != length) {
+			misses.incrementAndGet();
+			return null;
+		}
+		MappedByteBuffer mapped;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			// the mapping stays valid once the file is closed
+			mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+		}
+		finally {
+			raf.close();
+		}
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != nodeCount || mapped.getInt(8) != source
+				|| mapped.getLong(16) != contentHash) {
+			misses.incrementAndGet();
+			return null;
+		}
+		int settledNodesCount = mapped.getInt(12);
+		mapped.position(HEADER_BYTES);
+		LongBuffer distance = mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		distance.limit(nodeCount);
+		distance = distance.slice();
+		mapped.position((int) (HEADER_BYTES + 8L * nodeCount));
+		IntBuffer predecessor = mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		hits.incrementAndGet();
+		return new ShortestPathTree(source, distance, predecessor, settledNodesCount);
+	}
+
+	/**
+	 * Writes a tree to a temporary file moved atomically over the file of its key, so that a reader sees either the
+	 * old tree or the new one, never half a tree or no file
+	 * @param contentHash hash of the matrix
+	 * @param mode version of the problem
+	 * @param tree
+	 * @throws IOException if the file cannot be written, or if the tree is too large for a tree file
+	 */
+	public void save(long contentHash, String mode, ShortestPathTree tree) throws IOException {
+		int nodeCount = tree.getNodeCount();
+		long length = fileBytes(nodeCount);
+		if (length > MAXIMUM_FILE_BYTES)
+			throw new IOException("A tree of " + nodeCount + " nodes takes " + length + " bytes, a tree file holds at most " + MAXIMUM_FILE_BYTES);
+		ByteBuffer buffer = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(nodeCount).putInt(tree.getSource()).putInt(tree.getSettledNodesCount()).putLong(contentHash);
+		for (int node = 0; node < nodeCount; node++)
+			buffer.putLong(tree.getDistance(node));
+		for (int node = 0; node < nodeCount; node++)
+			buffer.putInt(tree.getPredecessor(node));
+		buffer.flip();
+		File file = fileOf(contentHash, mode, tree.getSource());
+		File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+		FileOutputStream out = new FileOutputStream(temporary);
+		try {
+			FileChannel channel = out.getChannel();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+		finally {
+			out.close();
+		}
+		// another run may have saved the same tree in the meantime, both files hold the same tree
+		try {
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e) {
+			temporary.delete();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param nodeCount
+	 * @return the number of bytes of the file of a tree
+	 */
+	private static long fileBytes(int nodeCount) {
+		return HEADER_BYTES + 12L * nodeCount;
+	}
+
+	/**
+	 * @param contentHash
+	 * @param mode
+	 * @param source
+	 * @return the file of a key
+	 */
+	private File fileOf(long contentHash, String mode, int source) {
+		return new File(directory, String.format("%016x-%s-%d.spt", Long.valueOf(contentHash), mode, Integer.valueOf(source)));
+	}
+}
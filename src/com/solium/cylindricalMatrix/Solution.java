@@ -0,0 +1,91 @@
+package com.solium.cylindricalMatrix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of solving the problem of an input file: the nodes of the minimum weight path from a source to a
+ * destination and its weight, as the program prints them. A solution found within a deadline (Graph.solveWithin)
+ * can be the best path found before the deadline instead: it is then flagged not optimal, and comes with a lower
+ * bound of the minimum weight. A solution is never changed once it is made, so it can be handed from one thread to
+ * another
+ */
+
+public class Solution {
+
+	private final List<Node> path;
+	private final long weight;
+	private final long lowerBound;
+	private final boolean optimal;
+
+	/**
+	 * @param path nodes from the source to the destination, empty if no destination can be reached
+	 * @param weight weight of the path, Long.MAX_VALUE if no destination can be reached
+	 */
+	public Solution(List<Node> path, long weight) {
+		this(path, weight, weight, true);
+	}
+
+	/**
+	 * @param path nodes of the best path found, empty if none has been found
+	 * @param weight weight of the path, Long.MAX_VALUE if none has been found
+	 * @param lowerBound no path from a source to a destination weighs less
+	 * @param optimal true if the path is the minimum weight path
+	 */
+	public Solution(List<Node> path, long weight, long lowerBound, boolean optimal) {
+		this.path = Collections.unmodifiableList(new ArrayList<Node>(path));
+		this.weight = weight;
+		this.lowerBound = lowerBound;
+		this.optimal = optimal;
+	}
+
+	/**
+	 * Solves the problem of a graph
+	 * @param graph graph of an input file, with its sources and destinations
+	 * @return the solution of the graph
+	 */
+	public static Solution of(Graph graph) {
+		List<Node> path = graph.findShortestPathFromSourcesAndDestinations();
+		if (path == null)
+			path = Collections.emptyList();
+		return new Solution(path, graph.getMinimumWeight());
+	}
+
+	public List<Node> getPath() {
+		return path;
+	}
+
+	public long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * @return the weight for an optimal solution, a weight that no path goes below otherwise
+	 */
+	public long getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * @return false if the search has been stopped before proving that the path is the minimum weight path
+	 */
+	public boolean isOptimal() {
+		return optimal;
+	}
+
+	/**
+	 * @return true if a path has been found, for an optimal solution true if a destination can be reached
+	 */
+	public boolean isFound() {
+		return !path.isEmpty();
+	}
+
+	/**
+	 * @return the path in the display format of the program: (i,j) (i,j) ...
+	 */
+	@Override
+	public String toString() {
+		return ShortestPath.format(path);
+	}
+}
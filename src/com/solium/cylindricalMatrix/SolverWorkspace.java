@@ -0,0 +1,201 @@
+package com.solium.cylindricalMatrix;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * State of a shortest path search over the node indices of a graph: the distance and the predecessor of each
+ * node reached, the nodes solved, and the queue of the nodes reached but not solved yet.
+ *
+ * The arrays are allocated once for a number of nodes and kept between searches. Instead of clearing them,
+ * reset starts a new generation: a distance, a predecessor or a solved mark only counts if it has been set
+ * in the current generation, so resetting costs O(1) (plus the nodes still in the queue) and a workspace can be
+ * reused by any number of searches on graphs with the same number of nodes.
+ *
+ * The workspace also carries what stops its searches: a deadline and a cancellation. They belong to the searches
+ * using the workspace and not to the graph, so that a search stopped on a graph does not stop the searches other
+ * threads run on the same graph with their own workspaces. Unlike the distances, they are kept by reset
+ */
+
+public class SolverWorkspace {
+
+	public static final long UNREACHED = Long.MAX_VALUE;
+
+	private final long[] distance; //long, so that the weight of a long path of heavy cells cannot overflow
+	private final int[] predecessor;
+	private final int[] reached; //generation in which the distance and the predecessor of each node were set
+	private final int[] solved; //generation in which each node was solved
+	private final NodeQueue queue;
+	private int generation = 1;
+	private int solvedCount; //number of nodes solved since the last reset
+	
+	//Deadline of the searches: they read the clock every CLOCK_STEPS steps and stop once it has passed
+	private static final int CLOCK_STEPS = 256;
+	private volatile boolean cancelled = false; //Set by cancel from any thread, stops the search using the workspace
+	private boolean timed = false;
+	private long deadline; //System.nanoTime() at which the searches stop
+	private int stepsBeforeClock;
+	private boolean expired;
+	private long frontierBound; //Lower bound of the distance to the destination of the last search stopped by the deadline
+
+	/**
+	 * @param queue queue of the search, its capacity is the number of nodes of the workspace
+	 */
+	public SolverWorkspace(NodeQueue queue) {
+		int capacity = queue.capacity();
+		this.distance = new long[capacity];
+		this.predecessor = new int[capacity];
+		this.reached = new int[capacity];
+		this.solved = new int[capacity];
+		this.queue = queue;
+	}
+
+	/**
+	 * @return the number of nodes, node indices go from 0 to capacity-1
+	 */
+	public int capacity() {
+		return distance.length;
+	}
+
+	public NodeQueue getQueue() {
+		return queue;
+	}
+
+	/**
+	 * Forgets every distance, predecessor and solved node, and empties the queue
+	 */
+	public void reset() {
+		queue.clear();
+		solvedCount = 0;
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			// the generations have gone round, the marks of old generations could be taken for new ones
+			Arrays.fill(reached, 0);
+			Arrays.fill(solved, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * @param node
+	 * @return the distance of a node from the source, UNREACHED if the node has not been reached
+	 */
+	public long getDistance(int node) {
+		return reached[node] == generation ? distance[node] : UNREACHED;
+	}
+
+	/**
+	 * @param node
+	 * @return the node a node is reached from on its shortest path, -1 for the source or a node not reached
+	 */
+	public int getPredecessor(int node) {
+		return reached[node] == generation ? predecessor[node] : -1;
+	}
+
+	/**
+	 * @param node
+	 * @param nodeDistance distance of the node from the source
+	 * @param nodePredecessor node it is reached from, -1 for the source
+	 */
+	public void setDistance(int node, long nodeDistance, int nodePredecessor) {
+		distance[node] = nodeDistance;
+		predecessor[node] = nodePredecessor;
+		reached[node] = generation;
+	}
+
+	public boolean isSolved(int node) {
+		return solved[node] == generation;
+	}
+
+	public void setSolved(int node) {
+		solved[node] = generation;
+		solvedCount++;
+	}
+
+	/**
+	 * @return the number of nodes solved since the last reset
+	 */
+	public int getSolvedCount() {
+		return solvedCount;
+	}
+	
+	/**
+	 * Stops the search using the workspace, from any thread: the search throws a CancellationException at its next
+	 * step, and so does every search using the workspace afterwards, until clearLimits
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * Called at each step of a search
+	 * @throws CancellationException if the workspace has been cancelled
+	 */
+	void checkCancelled() {
+		if (cancelled)
+			throw new CancellationException("The search has been cancelled");
+	}
+	
+	/**
+	 * @param deadline System.nanoTime() at which the searches using the workspace stop
+	 */
+	public void setDeadline(long deadline) {
+		this.timed = true;
+		this.deadline = deadline;
+		this.stepsBeforeClock = 0;
+		this.expired = false;
+	}
+	
+	/**
+	 * Forgets the deadline and the cancellation, for a workspace given to another search
+	 */
+	public void clearLimits() {
+		cancelled = false;
+		timed = false;
+		expired = false;
+	}
+	
+	/**
+	 * Called at each step of a search, it only reads the clock every CLOCK_STEPS steps. Once it has returned true
+	 * it always does, until the deadline is set again
+	 * @return true if the workspace has a deadline and it has passed
+	 */
+	boolean isExpired() {
+		if (!timed)
+			return false;
+		if (expired)
+			return true;
+		if (--stepsBeforeClock > 0)
+			return false;
+		stepsBeforeClock = CLOCK_STEPS;
+		expired = System.nanoTime() - deadline >= 0;
+		return expired;
+	}
+	
+	/**
+	 * Records that a search has been stopped by the deadline
+	 * @param lowerBound lower bound of the distance to the destination the search could still have found
+	 */
+	void stop(long lowerBound) {
+		expired = true;
+		frontierBound = lowerBound;
+	}
+	
+	/**
+	 * @return true if a search has been stopped by the deadline, without reading the clock
+	 */
+	boolean isStopped() {
+		return expired;
+	}
+	
+	/**
+	 * @return the lower bound recorded by the last search stopped by the deadline
+	 */
+	long getFrontierBound() {
+		return frontierBound;
+	}
+}
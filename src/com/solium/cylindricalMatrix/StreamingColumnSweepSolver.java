@@ -0,0 +1,160 @@
+package com.solium.cylindricalMatrix;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Solves the Standard version like ColumnSweepSolver, but is given the columns one at a time instead of a whole
+ * matrix, so that a matrix stored column by column can be solved while it is read, whatever its size. Only a few
+ * arrays of one column are kept in memory: the row offsets of the predecessors are written to a temporary file,
+ * one byte per cell, and read back from the last column to the first one to find the path.
+ *
+ * The columns are given once, from the first one to the last one, with addColumn, and finish then finds the path.
+ * Each column is swept as ColumnSweepSolver sweeps it, keeping the first source row of each row, so that the path
+ * is the same as ColumnSweepSolver's
+ */
+
+public class StreamingColumnSweepSolver implements Closeable {
+
+	private final int rows;
+	private final int cols;
+	private final File spillDirectory;
+
+	private long[] weights;
+	private long[] nextWeights;
+	private byte[] offsets;
+	private int[] sources; //first source row of the lightest path to each row
+	private int[] nextSources;
+	private int columns; //number of columns given
+	private File spillFile;
+	private OutputStream spill;
+
+	private long minimumWeight = Long.MAX_VALUE;
+	private int[] pathRows;
+
+	/**
+	 * @param rows
+	 * @param cols
+	 * @param spillDirectory directory of the temporary file of the predecessors, null for the default one
+	 */
+	public StreamingColumnSweepSolver(int rows, int cols, File spillDirectory) {
+		if (rows < 1 || cols < 1)
+			throw new IllegalArgumentException("The matrix must have at least one row and one column");
+		this.rows = rows;
+		this.cols = cols;
+		this.spillDirectory = spillDirectory;
+		this.weights = new long[rows];
+		this.nextWeights = new long[rows];
+		this.offsets = new byte[rows];
+		this.sources = new int[rows];
+		this.nextSources = new int[rows];
+	}
+
+	public long getMinimumWeight() {
+		return minimumWeight;
+	}
+
+	/**
+	 * @return the zero based row of the path in each column, null until finish has found the path
+	 */
+	public int[] getPathRows() {
+		return pathRows;
+	}
+
+	/**
+	 * Gives the next column to the solver
+	 * @param column weights of the column, one per row
+	 * @throws IOException if the predecessors cannot be written to the temporary file
+	 */
+	public void addColumn(int[] column) throws IOException {
+		if (columns == cols)
+			throw new IllegalStateException("Every column has been given");
+		if (columns == 0) {
+			spillFile = File.createTempFile("predecessors", ".tmp", spillDirectory);
+			spill = new BufferedOutputStream(new FileOutputStream(spillFile), 1 << 16);
+			startSources(column, weights, sources);
+		}
+		else {
+			ColumnSweepSolver.sweepColumn(weights, sources, column, nextWeights, nextSources, offsets);
+			spill.write(offsets);
+			swap();
+		}
+		columns++;
+	}
+
+	/**
+	 * Reads the predecessors back from the last column to find the path, and deletes the temporary file. Every
+	 * column must have been given
+	 * @return true if a path has been found
+	 * @throws IOException if the predecessors cannot be read from the temporary file
+	 */
+	public boolean finish() throws IOException {
+		if (columns < cols)
+			throw new IllegalStateException("Every column has not been given");
+		try {
+			spill.close();
+			spill = null;
+			pathRows = new int[cols];
+			pathRows[cols-1] = ColumnSweepSolver.closestRow(weights, sources);
+			minimumWeight = weights[pathRows[cols-1]];
+			RandomAccessFile predecessors = new RandomAccessFile(spillFile, "r");
+			try {
+				// the file starts with the predecessors of the second column
+				for (int col = cols-1; col > 0; col--) {
+					predecessors.seek((long) (col-1) * rows + pathRows[col]);
+					pathRows[col-1] = ColumnSweepSolver.wrap(pathRows[col] + predecessors.readByte(), rows);
+				}
+			}
+			finally {
+				predecessors.close();
+			}
+		}
+		finally {
+			close();
+		}
+		return true;
+	}
+
+	/**
+	 * Deletes the temporary file, the solver cannot be used anymore
+	 */
+	public void close() throws IOException {
+		try {
+			if (spill != null)
+				spill.close();
+		}
+		finally {
+			spill = null;
+			if (spillFile != null)
+				spillFile.delete();
+			spillFile = null;
+		}
+	}
+
+	/**
+	 * Starts the sweep with the first column, from every row
+	 * @param column weights of the first column
+	 * @param weights set to the weight of each row
+	 * @param sources set to the source of each row, the row itself
+	 */
+	private static void startSources(int[] column, long[] weights, int[] sources) {
+		for (int row = 0; row < column.length; row++) {
+			weights[row] = column[row];
+			sources[row] = row;
+		}
+	}
+
+	private void swap() {
+		long[] swap = weights;
+		weights = nextWeights;
+		nextWeights = swap;
+		int[] swapSources = sources;
+		sources = nextSources;
+		nextSources = swapSources;
+	}
+}
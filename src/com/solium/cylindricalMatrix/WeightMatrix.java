@@ -0,0 +1,26 @@
+package com.solium.cylindricalMatrix;
+
+/**
+ * Weights of the cells of a matrix, read by row and column or by the index of a cell (row * columns + column).
+ * The weights can be kept in arrays or read in place from a buffer, a GridGraph only reads them through this interface
+ */
+
+public interface WeightMatrix {
+
+	int getRows();
+
+	int getColumns();
+
+	/**
+	 * @param row zero based row of the cell
+	 * @param col zero based column of the cell
+	 * @return the weight of the cell
+	 */
+	int get(int row, int col);
+
+	/**
+	 * @param index row * columns + column of the cell
+	 * @return the weight of the cell
+	 */
+	int get(int index);
+}
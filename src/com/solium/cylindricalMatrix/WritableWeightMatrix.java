@@ -0,0 +1,21 @@
+package com.solium.cylindricalMatrix;
+
+/**
+ * Weight matrix the parser fills row by row. The weights are kept as narrow as they allow: the matrix starts with
+ * one byte per weight and is widened the first time a row does not fit
+ */
+
+public interface WritableWeightMatrix extends WeightMatrix {
+
+	/**
+	 * @return the number of bytes of a weight: 1, 2 or 4
+	 */
+	int getWidth();
+
+	/**
+	 * Sets the weights of a row. Several threads can set different rows at the same time
+	 * @param row zero based row
+	 * @param weights weights of the row, one per column
+	 */
+	void setRow(int row, int[] weights);
+}
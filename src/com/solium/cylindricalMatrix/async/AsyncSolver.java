@@ -0,0 +1,217 @@
+package com.solium.cylindricalMatrix.async;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.Solution;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException;
+
+/**
+ * Parses and solves input files on an executor given by the caller (a pool of platform threads, a virtual thread
+ * per task, ...) and answers with a CompletableFuture, so that the thread asking does not wait for the solution.
+ *
+ * At most maximumInFlight input files are parsed or solved at a time. When there are already that many, a new
+ * input file waits in a queue for one of them to end if the solver queues, and is answered at once with a
+ * RejectedExecutionException otherwise. Cancelling a future (cancel(boolean), whatever its argument) stops the
+ * Dijkstra loop or the sweep of its input file at the next step, or removes the input file from the queue; the
+ * input file stays in flight until its search has stopped.
+ *
+ * A malformed input file completes its future with a CylindricalMatrixInputParserException
+ */
+
+public class AsyncSolver {
+
+	private final Executor executor;
+	private final int maximumInFlight;
+	private final boolean queueing;
+
+	private final Object lock = new Object();
+	private final ArrayDeque<Task> waiting = new ArrayDeque<Task>(); //guarded by lock
+	private int inFlight; //guarded by lock
+
+	/**
+	 * @param executor executor running the parsing and the solving
+	 * @param maximumInFlight largest number of input files parsed or solved at a time
+	 * @param queueing true to queue the input files past maximumInFlight, false to reject them
+	 */
+	public AsyncSolver(Executor executor, int maximumInFlight, boolean queueing) {
+		if (maximumInFlight < 1)
+			throw new IllegalArgumentException("The solver must allow at least one input file in flight");
+		this.executor = executor;
+		this.maximumInFlight = maximumInFlight;
+		this.queueing = queueing;
+	}
+
+	/**
+	 * @param input content of an input file
+	 * @return the solution of the input file, once it is solved
+	 */
+	public CompletableFuture<Solution> solve(final String input) {
+		return submit(new Task() {
+			GridGraph build(CylindricalMatrixInputParser parser) throws IOException, CylindricalMatrixInputParserException {
+				return parser.buildGridGraph(new StringReader(input));
+			}
+		});
+	}
+
+	/**
+	 * @param input input file, or binary matrix file
+	 * @return the solution of the input file, once it is solved
+	 */
+	public CompletableFuture<Solution> solve(final File input) {
+		return submit(new Task() {
+			GridGraph build(CylindricalMatrixInputParser parser) throws IOException, CylindricalMatrixInputParserException {
+				return parser.buildGridGraph(input);
+			}
+		});
+	}
+
+	/**
+	 * @return the number of input files being parsed or solved
+	 */
+	public int getInFlightCount() {
+		synchronized (lock) {
+			return inFlight;
+		}
+	}
+
+	/**
+	 * @return the number of input files waiting for room
+	 */
+	public int getWaitingCount() {
+		synchronized (lock) {
+			return waiting.size();
+		}
+	}
+
+	/**
+	 * Solves a parsed input file, on a thread of the executor
+	 * @param graph graph of the input file, cancelled when its future is cancelled
+	 * @return the solution of the graph
+	 */
+	protected Solution solveGraph(GridGraph graph) {
+		return Solution.of(graph);
+	}
+
+	private CompletableFuture<Solution> submit(final Task task) {
+		// a cancelled future stops the search of its task, whoever cancels it
+		task.future.whenComplete(new BiConsumer<Solution, Throwable>() {
+			public void accept(Solution solution, Throwable error) {
+				if (task.future.isCancelled())
+					cancel(task);
+			}
+		});
+		synchronized (lock) {
+			if (inFlight == maximumInFlight) {
+				if (queueing)
+					waiting.add(task);
+				else
+					task.future.completeExceptionally(new RejectedExecutionException("Too many input files in flight"));
+				return task.future;
+			}
+			inFlight++;
+		}
+		start(task);
+		return task.future;
+	}
+
+	/**
+	 * @param task a task counted in flight
+	 */
+	private void start(Task task) {
+		try {
+			executor.execute(task);
+		}
+		catch (RejectedExecutionException e) {
+			finished();
+			task.future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Gives the room of a task that has ended to the next task waiting
+	 */
+	private void finished() {
+		Task next;
+		synchronized (lock) {
+			next = waiting.poll();
+			if (next == null)
+				inFlight--;
+		}
+		if (next != null)
+			start(next);
+	}
+
+	private void cancel(Task task) {
+		synchronized (lock) {
+			if (waiting.remove(task))
+				return;
+		}
+		task.cancel();
+	}
+
+	/**
+	 * Parses and solves an input file, and completes its future
+	 */
+	private abstract class Task implements Runnable {
+		final CompletableFuture<Solution> future = new CompletableFuture<Solution>();
+		private volatile boolean cancelled;
+		private volatile GridGraph graph; //graph being solved, null before it is parsed
+
+		abstract GridGraph build(CylindricalMatrixInputParser parser) throws IOException, CylindricalMatrixInputParserException;
+
+		void cancel() {
+			cancelled = true;
+			GridGraph solving = graph;
+			if (solving != null)
+				solving.cancel();
+		}
+
+		public void run() {
+			Solution solution = null;
+			Throwable error = null;
+			try {
+				if (cancelled)
+					return;
+				graph = build(new CylindricalMatrixInputParser());
+				// published before checking, so that a cancel in between reaches the graph
+				if (cancelled)
+					graph.cancel();
+				solution = solveGraph(graph);
+			}
+			catch (CancellationException e) {
+				// the future is already cancelled
+			}
+			catch (IOException e) {
+				error = e;
+			}
+			catch (CylindricalMatrixInputParserException e) {
+				error = e;
+			}
+			catch (RuntimeException e) {
+				error = e;
+			}
+			catch (Error e) {
+				error = e;
+			}
+			finally {
+				graph = null;
+				// the room is given back first, so that a caller answered can submit again at once
+				finished();
+			}
+			if (solution != null)
+				future.complete(solution);
+			else if (error != null)
+				future.completeExceptionally(error);
+		}
+	}
+}
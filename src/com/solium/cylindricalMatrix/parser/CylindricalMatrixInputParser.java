@@ -1,17 +1,31 @@
 package com.solium.cylindricalMatrix.parser;
 
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
 
+import com.solium.cylindricalMatrix.BufferWeightMatrix;
 import com.solium.cylindricalMatrix.Edge;
+import com.solium.cylindricalMatrix.FlatWeightMatrix;
 import com.solium.cylindricalMatrix.Graph;
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.NeighborStencil;
 import com.solium.cylindricalMatrix.Node;
+import com.solium.cylindricalMatrix.OffHeapWeightMatrix;
+import com.solium.cylindricalMatrix.StreamingColumnSweepSolver;
+import com.solium.cylindricalMatrix.WeightMatrix;
+import com.solium.cylindricalMatrix.WritableWeightMatrix;
 
 /**
  * Class to create a Graph based on a matrix configuration in a text file.  
@@ -54,8 +68,30 @@ import com.solium.cylindricalMatrix.Node;
 
 public class CylindricalMatrixInputParser {
 	
+	//Largest weight for which the graphs solve with a BucketQueue, which needs one bucket per possible edge weight
+	public static final int MAXIMUM_BUCKET_WEIGHT = 255;
+	
+	//First bytes of a binary matrix file ("CMXB" read as a little endian int), see convertToBinary
+	private static final int BINARY_MAGIC = 0x42584D43;
+	private static final short BINARY_VERSION = 1;
+	private static final int BINARY_HEADER_BYTES = 40;
+	
 	Graph graph = new Graph(new ArrayList<Edge>());
-	Map<String, Node> nodesMap = new HashMap<String, Node>();
+	Node[][] nodes; //node of each cell of the matrix, by zero based row and column
+	
+	//These variables keep what has been read from the input file
+	private String header;
+	private int rows;
+	private int cols;
+	private WritableWeightMatrix weights; //null once a binary matrix file is read
+	private String sourceNodeStr;
+	private String destNodeStr;
+	private int minimumCellWeight;
+	private int maximumCellWeight;
+	private List<int[]> queries; //queries of a batch input file
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private boolean offHeap = false; //keeps the weights outside the heap even when they fit in an array
+	private ForkJoinPool sharedPool; //pool given by setPool, null to start one per input file
 	
 	/**
      * Given a connection to an input file, builds the graph.
@@ -67,45 +103,18 @@ public class CylindricalMatrixInputParser {
      * 
      */
     public Graph buildGraph(Reader input) throws IOException, CylindricalMatrixInputParserException {
-        BufferedReader bin = new BufferedReader(input);
-        String header = bin.readLine().trim();
-        
-        if (!isStandard(header) && !isBonus1(header) && !isBonus2(header))
-        	throw new CylindricalMatrixInputParserException("The input file is missing a valid header (S, B1, B2)");
-        
-        String matrixDimensionsLine = bin.readLine();
-        StringTokenizer tokenizer = new StringTokenizer(matrixDimensionsLine, " ");
-        
-        String rowsStr = tokenizer.nextToken().trim();
-        if (!tokenizer.hasMoreElements())
-        	throw new CylindricalMatrixInputParserException("Please provide two numbers for matrix dimensions in the input file");
-        String columnsStr = tokenizer.nextToken().trim();
-        if (rowsStr == null || columnsStr == null)
-        	throw new CylindricalMatrixInputParserException("Please provide valid numbers for matrix dimensions in the input file");
-        
-        int rows = Integer.parseInt(rowsStr);
-        int cols = Integer.parseInt(columnsStr);
+        reset();
+        readMatrix(new MatrixScanner(input), true);
         createAllNodesOfGraph(rows, cols);
-        
-        int[][] weightMatrix = new int[rows][cols];
+        //the edges are built from the cells of each row and its neighbor rows
+        int[][] weightMatrix = weightArrays();
         
         /*
          * if the input file is a standard version
          */
         if ("S".equals(header)) {
             for (int row = 0; row < rows; row++) {
-            	String line = bin.readLine();
-            	if (line == null)
-            		throw new CylindricalMatrixInputParserException("Invalid number of rows");
-            	
-            	String[] tokens = line.split("[ ]+");
-            	if (tokens.length != cols)
-            		throw new CylindricalMatrixInputParserException("Invalid number of columns");
-            	
             	for (int col = 0; col < cols; col++) {
-            		
-            		weightMatrix[row][col] = Integer.parseInt(tokens[col]);
-            		
             		if (col > 0) {
             			
             			// If top row, only add horizontal edges
@@ -127,44 +136,30 @@ public class CylindricalMatrixInputParser {
             List<Node> destinations = new ArrayList<Node>();
             for (int i = 0; i < rows; i++) {
             	sourceWeights.add(weightMatrix[i][0]);
-            	sources.add(nodesMap.get(makeNodeId(i, 0)));
-            	destinations.add(nodesMap.get(makeNodeId(i, cols-1)));
+            	sources.add(getNode(i, 0));
+            	destinations.add(getNode(i, cols-1));
             }
             graph.setSourceWeights(sourceWeights);
             graph.setSources(sources);
             graph.setDestinations(destinations);
+            graph.setMultiSource(true);
         }
         
         /*
          * if the input file is the Bonus1 version
          */
         else if ("B1".equals(header)) {
-        	if (!tokenizer.hasMoreElements())
-        		throw new CylindricalMatrixInputParserException("Source coordinates missing");
-        	String sourceNodeStr = tokenizer.nextToken().trim();
-        	if (!tokenizer.hasMoreElements())
-        		throw new CylindricalMatrixInputParserException("Destination coordinates missing");
-        	String destNodeStr = tokenizer.nextToken().trim();
+        	int[] source = matrixCell(sourceNodeStr, "source");
+        	int[] destination = matrixCell(destNodeStr, "destination");
         	List<Node> sources = new ArrayList<Node>();
-        	sources.add(nodesMap.get(sourceNodeStr));
+        	sources.add(getNode(source[0], source[1]));
         	List<Node> destinations = new ArrayList<Node>();
-        	destinations.add(nodesMap.get(destNodeStr));
+        	destinations.add(getNode(destination[0], destination[1]));
         	graph.setSources(sources);
         	graph.setDestinations(destinations);
         	
             for (int row = 0; row < rows; row++) {
-            	String line = bin.readLine();
-            	if (line == null)
-            		throw new CylindricalMatrixInputParserException("Invalid number of rows");
-
-            	String[] tokens = line.split(" ");
-            	if (tokens.length != cols)
-            		throw new CylindricalMatrixInputParserException("Invalid number of columns");
-            	
             	for (int col = 0; col < cols; col++) {
-            		
-            		weightMatrix[row][col] = Integer.parseInt(tokens[col]);
-            		
             		if (col == 0) {
             			//middle rows first column
             			if (row > 0 && row < rows -1) 
@@ -189,9 +184,8 @@ public class CylindricalMatrixInputParser {
             		}
             	}
             }
-            int[] dimensions = sourceDimensions(sourceNodeStr);
             List<Integer> sourceWeights = new ArrayList<Integer>();
-            sourceWeights.add(weightMatrix[dimensions[0]-1][dimensions[1]-1]);
+            sourceWeights.add(weightMatrix[source[0]][source[1]]);
             graph.setSourceWeights(sourceWeights);
         }
         
@@ -199,32 +193,17 @@ public class CylindricalMatrixInputParser {
          * if the input file is the Bonus2 version
          */
         else if ("B2".equals(header)) {
-        	if (!tokenizer.hasMoreElements())
-        		throw new CylindricalMatrixInputParserException("Source coordinates missing");
-        	String sourceNodeStr = tokenizer.nextToken().trim();
-        	if (!tokenizer.hasMoreElements())
-        		throw new CylindricalMatrixInputParserException("Destination coordinates missing");
-        	String destNodeStr = tokenizer.nextToken().trim(); 
+        	int[] source = matrixCell(sourceNodeStr, "source");
+        	int[] destination = matrixCell(destNodeStr, "destination");
         	List<Node> sources = new ArrayList<Node>();
-        	sources.add(nodesMap.get(sourceNodeStr));
+        	sources.add(getNode(source[0], source[1]));
         	List<Node> destinations = new ArrayList<Node>();
-        	destinations.add(nodesMap.get(destNodeStr));
+        	destinations.add(getNode(destination[0], destination[1]));
         	graph.setSources(sources);
         	graph.setDestinations(destinations);
         	
             for (int row = 0; row < rows; row++) {
-            	String line = bin.readLine();
-            	if (line == null)
-            		throw new CylindricalMatrixInputParserException("Invalid number of rows");
-            	
-            	String[] tokens = line.split(" ");
-            	if (tokens.length != cols)
-            		throw new CylindricalMatrixInputParserException("Invalid number of columns");
-            	
             	for (int col = 0; col < cols; col++) {
-            		
-            		weightMatrix[row][col] = Integer.parseInt(tokens[col]);
-            		
             		if (col == 0) {
             			//middle rows first column
             			if (row > 0 && row < rows -1) 
@@ -263,24 +242,551 @@ public class CylindricalMatrixInputParser {
             		}
             	}
             }
-            int[] dimensions = sourceDimensions(sourceNodeStr);
             List<Integer> sourceWeights = new ArrayList<Integer>();
-            sourceWeights.add(weightMatrix[dimensions[0]-1][dimensions[1]-1]);
+            sourceWeights.add(weightMatrix[source[0]][source[1]]);
             graph.setSourceWeights(sourceWeights); 
         }
         
+        setEdgeWeightRange(graph);
         return graph;
     }
+    
+	/**
+     * Given a connection to an input file, builds a graph that only keeps the weight matrix and works out
+     * the neighbors of a node on demand, instead of creating an Edge for each move in the matrix.
+     *
+     * @param input A reader currently pointing to a matrix input file.
+     * @return The GridGraph constructed based on the matrix in the provided input file.
+     * @throws IOException If there are any errors reading from the input Reader.
+     * @throws CylindricalMatrixInputParserException If the input file is malformed
+     * 
+     */
+    public GridGraph buildGridGraph(Reader input) throws IOException, CylindricalMatrixInputParserException {
+        reset();
+        readMatrix(new MatrixScanner(input), true);
+        return createGridGraph(weights);
+    }
+    
+    /**
+     * Builds the graph of the next input file of a stream of input files, one after the other. The blank lines
+     * before an input file are skipped
+     * @param scanner scanner of the stream, positioned after the previous input file
+     * @return the GridGraph of the next input file, null if the stream has no input file left
+     * @throws IOException If there are any errors reading from the stream.
+     * @throws CylindricalMatrixInputParserException If the input file is malformed
+     */
+    GridGraph buildNextGridGraph(MatrixScanner scanner) throws IOException, CylindricalMatrixInputParserException {
+        String headerLine;
+        do {
+        	headerLine = scanner.readLine();
+        	if (headerLine == null)
+        		return null;
+        }
+        while (headerLine.trim().length() == 0);
+        reset();
+        readMatrix(scanner, headerLine, true);
+        return createGridGraph(weights);
+    }
+    
+    /**
+     * Given an input file, builds the same graph as buildGridGraph(Reader), but the file is mapped in memory and its
+     * rows are found and parsed by several threads, which is faster for large files
+     *
+     * @param input A matrix input file.
+     * @return The GridGraph constructed based on the matrix in the provided input file.
+     * @throws IOException If there are any errors reading the input file.
+     * @throws CylindricalMatrixInputParserException If the input file is malformed
+     */
+    public GridGraph buildGridGraph(File input) throws IOException, CylindricalMatrixInputParserException {
+        reset();
+        if (isBinaryMatrix(input))
+        	return createGridGraph(readBinaryMatrix(input));
+        MappedMatrixReader reader = new MappedMatrixReader(input);
+        readDimensions(reader.readLine(), reader.readLine(), true);
+        ForkJoinPool pool = sharedPool != null ? sharedPool : new ForkJoinPool(parallelism);
+        try {
+        	weights = createWeightMatrix();
+        	long[][] lines = reader.findLines(rows, pool);
+        	//the rows found are parsed first, so that their errors come before the missing rows
+        	int[] range = reader.parseRows(lines[0], lines[1], weights, isStandard(header), pool);
+        	if (lines[0].length < rows)
+        		throw new CylindricalMatrixInputParserException("Invalid number of rows");
+        	minimumCellWeight = range[0];
+        	maximumCellWeight = range[1];
+        }
+        finally {
+        	if (pool != sharedPool)
+        		pool.shutdown();
+        }
+        return createGridGraph(weights);
+    }
+    
+    public int getParallelism() {
+    	return parallelism;
+    }
+    
+    /**
+     * @param parallelism number of threads parsing an input file given as a File
+     */
+    public void setParallelism(int parallelism) {
+    	if (parallelism < 1)
+    		throw new IllegalArgumentException("The parallelism must be at least 1");
+    	this.parallelism = parallelism;
+    }
+    
+    public ForkJoinPool getPool() {
+    	return sharedPool;
+    }
+    
+    /**
+     * @param pool pool parsing the input files given as a File, which can be shared by several parsers and is not
+     * shut down by the parser, null to start a pool of parallelism threads for each input file
+     */
+    public void setPool(ForkJoinPool pool) {
+    	this.sharedPool = pool;
+    }
+    
+    /**
+     * Forgets the input file read last, so that the parser can read another one: the graph, the nodes, the weights
+     * and the queries are dropped, the parallelism, the pool and the off heap setting are kept. Every build method
+     * starts with it, so a parser can be reused for any number of input files, one at a time
+     */
+    public void reset() {
+    	graph = new Graph(new ArrayList<Edge>());
+    	nodes = null;
+    	header = null;
+    	rows = 0;
+    	cols = 0;
+    	weights = null;
+    	sourceNodeStr = null;
+    	destNodeStr = null;
+    	minimumCellWeight = 0;
+    	maximumCellWeight = 0;
+    	queries = null;
+    }
+    
+    public boolean isOffHeap() {
+    	return offHeap;
+    }
+    
+    /**
+     * @param offHeap true to keep the weights read from a text input file outside the heap, which is always done
+     * for a matrix of more than 2^31 cells
+     */
+    public void setOffHeap(boolean offHeap) {
+    	this.offHeap = offHeap;
+    }
+    
+    /**
+     * @return an empty matrix of the dimensions read, in a flat array or outside the heap
+     */
+    private WritableWeightMatrix createWeightMatrix() {
+    	if (offHeap || (long) rows * cols > Integer.MAX_VALUE)
+    		return new OffHeapWeightMatrix(rows, cols);
+    	return new FlatWeightMatrix(rows, cols);
+    }
+    
+    /**
+     * @param cellWeights weights of the matrix read last
+     * @return the GridGraph of the matrix read last, with its sources and destinations
+     */
+    private GridGraph createGridGraph(WeightMatrix cellWeights) throws CylindricalMatrixInputParserException {
+        GridGraph gridGraph = new GridGraph(cellWeights, NeighborStencil.forHeader(header));
+        
+        List<Integer> sourceWeights = new ArrayList<Integer>();
+        List<Node> sources = new ArrayList<Node>();
+        List<Node> destinations = new ArrayList<Node>();
+        if ("S".equals(header)) {
+            for (int i = 0; i < rows; i++) {
+            	sourceWeights.add(cellWeights.get(i, 0));
+            	sources.add(gridGraph.getNode(i, 0));
+            	destinations.add(gridGraph.getNode(i, cols-1));
+            }
+            gridGraph.setMultiSource(true);
+            gridGraph.setColumnSweep(true);
+        }
+        else {
+        	int[] source = matrixCell(sourceNodeStr, "source");
+        	int[] destination = matrixCell(destNodeStr, "destination");
+        	sourceWeights.add(cellWeights.get(source[0], source[1]));
+        	sources.add(gridGraph.getNode(source[0], source[1]));
+        	destinations.add(gridGraph.getNode(destination[0], destination[1]));
+        }
+        gridGraph.setSourceWeights(sourceWeights);
+        gridGraph.setSources(sources);
+        gridGraph.setDestinations(destinations);
+        setEdgeWeightRange(gridGraph);
+        return gridGraph;
+    }
+    
+    /**
+     * Converts a text input file to the binary matrix format, which is read back by buildGridGraph(File) without
+     * parsing: the weights are read in place from the file mapped in memory.
+     *
+     * Layout of a binary matrix file, little endian:
+     * bytes "CMXB", byte version of the problem (0 for S, 1 for B1, 2 for B2), byte width of a weight (1 or 2 for
+     * unsigned weights, 4 for signed weights), short format version, int rows, int columns, int source row,
+     * int source column, int destination row, int destination column (one based, 0 for S), int smallest weight,
+     * int largest weight, and then the weights row by row
+     *
+     * @param input A reader currently pointing to a matrix input file.
+     * @param output The binary matrix file to write.
+     * @throws IOException If there are any errors reading from the input Reader or writing the binary file.
+     * @throws CylindricalMatrixInputParserException If the input file is malformed
+     */
+    public void convertToBinary(Reader input, File output) throws IOException, CylindricalMatrixInputParserException {
+        reset();
+        readMatrix(new MatrixScanner(input), true);
+        //the weights are kept as narrow as the matrix read needs
+        int width = weights.getWidth();
+        if (!isStandard(header)) {
+        	matrixCell(sourceNodeStr, "source");
+        	matrixCell(destNodeStr, "destination");
+        }
+        //the binary header keeps the one based coordinates of the input file
+        int[] source = isStandard(header) ? new int[2] : sourceDimensions(sourceNodeStr);
+        int[] destination = isStandard(header) ? new int[2] : sourceDimensions(destNodeStr);
+        ByteBuffer headerBytes = ByteBuffer.allocate(BINARY_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        headerBytes.putInt(BINARY_MAGIC).put((byte) (isStandard(header) ? 0 : isBonus1(header) ? 1 : 2)).put((byte) width);
+        headerBytes.putShort(BINARY_VERSION).putInt(rows).putInt(cols);
+        headerBytes.putInt(source[0]).putInt(source[1]).putInt(destination[0]).putInt(destination[1]);
+        headerBytes.putInt(minimumCellWeight).putInt(maximumCellWeight);
+        headerBytes.flip();
+        
+        FileOutputStream out = new FileOutputStream(output);
+        try {
+        	FileChannel channel = out.getChannel();
+        	channel.write(headerBytes);
+        	ByteBuffer rowBytes = ByteBuffer.allocate(cols * width).order(ByteOrder.LITTLE_ENDIAN);
+        	for (int row = 0; row < rows; row++) {
+        		rowBytes.clear();
+        		for (int col = 0; col < cols; col++) {
+        			int weight = weights.get(row, col);
+        			if (width == 1)
+        				rowBytes.put((byte) weight);
+        			else if (width == 2)
+        				rowBytes.putShort((short) weight);
+        			else
+        				rowBytes.putInt(weight);
+        		}
+        		rowBytes.flip();
+        		while (rowBytes.hasRemaining())
+        			channel.write(rowBytes);
+        	}
+        }
+        finally {
+        	out.close();
+        }
+    }
+    
+    /**
+     * @param input
+     * @return true if the file starts like a binary matrix file
+     * @throws IOException
+     */
+    private boolean isBinaryMatrix(File input) throws IOException {
+    	RandomAccessFile raf = new RandomAccessFile(input, "r");
+    	try {
+    		return raf.length() >= 4 && Integer.reverseBytes(raf.readInt()) == BINARY_MAGIC;
+    	}
+    	finally {
+    		raf.close();
+    	}
+    }
+    
+    /**
+     * Reads the header of a binary matrix file and maps its weights in memory
+     * @param input
+     * @return the weights, read in place from the file
+     * @throws IOException
+     * @throws CylindricalMatrixInputParserException if the file is not a valid binary matrix file
+     */
+    private WeightMatrix readBinaryMatrix(File input) throws IOException, CylindricalMatrixInputParserException {
+    	RandomAccessFile raf = new RandomAccessFile(input, "r");
+    	try {
+    		FileChannel channel = raf.getChannel();
+    		if (channel.size() < BINARY_HEADER_BYTES)
+    			throw new CylindricalMatrixInputParserException("Invalid binary matrix file");
+    		ByteBuffer headerBytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    		int mode = headerBytes.get(4);
+    		int width = headerBytes.get(5);
+    		rows = headerBytes.getInt(8);
+    		cols = headerBytes.getInt(12);
+    		if (headerBytes.getShort(6) != BINARY_VERSION || mode < 0 || mode > 2 || (width != 1 && width != 2 && width != 4)
+    				|| rows < 0 || cols < 0 || channel.size() != BINARY_HEADER_BYTES + (long) rows * cols * width)
+    			throw new CylindricalMatrixInputParserException("Invalid binary matrix file");
+    		header = mode == 0 ? "S" : mode == 1 ? "B1" : "B2";
+    		sourceNodeStr = headerBytes.getInt(16) + "," + headerBytes.getInt(20);
+    		destNodeStr = headerBytes.getInt(24) + "," + headerBytes.getInt(28);
+    		minimumCellWeight = headerBytes.getInt(32);
+    		maximumCellWeight = headerBytes.getInt(36);
+    		weights = null;
+    		// the mapping stays valid once the file is closed
+    		if ((long) rows * cols * width > Integer.MAX_VALUE)
+    			return OffHeapWeightMatrix.map(channel, BINARY_HEADER_BYTES, rows, cols, width);
+    		ByteBuffer payload = channel.map(FileChannel.MapMode.READ_ONLY, BINARY_HEADER_BYTES, (long) rows * cols * width);
+    		return new BufferWeightMatrix(payload, rows, cols, width);
+    	}
+    	finally {
+    		raf.close();
+    	}
+    }
+    
+    /**
+     * Given a column major input file, solves the Standard version while reading the columns, without keeping the
+     * matrix in memory. A column major input file has the S header and the matrix dimensions (rows, then columns)
+     * followed by one line per column, each with the weights of the column from the first row to the last row.
+     * The file is read once, see StreamingColumnSweepSolver
+     *
+     *Example of the column major configuration of the 3x4 matrix of the Standard version:
+     *S
+     *3 4
+     *3 6 5
+     *4 1 9
+     *1 8 3
+     *2 2 9
+     *
+     * @param input A column major input file.
+     * @param spillDirectory Directory of the temporary file of the predecessors, null for the default one.
+     * @return The solver, with the minimum weight and the row of the path in each column.
+     * @throws IOException If there are any errors reading the input file or the temporary file.
+     * @throws CylindricalMatrixInputParserException If the input file is malformed
+     */
+    public StreamingColumnSweepSolver solveColumnMajor(File input, File spillDirectory) throws IOException, CylindricalMatrixInputParserException {
+    	reset();
+    	StreamingColumnSweepSolver solver = null;
+    	try {
+    		MatrixScanner scanner = new MatrixScanner(new InputStreamReader(new FileInputStream(input), "US-ASCII"));
+    		try {
+    			readDimensions(scanner.readLine(), scanner.readLine(), false);
+    			if (!isStandard(header))
+    				throw new CylindricalMatrixInputParserException("A column major input file needs an S header");
+    			if (rows < 1 || cols < 1)
+    				throw new CylindricalMatrixInputParserException("Please provide valid numbers for matrix dimensions in the input file");
+    			solver = new StreamingColumnSweepSolver(rows, cols, spillDirectory);
+    			int[] column = new int[rows];
+    			for (int col = 0; col < cols; col++) {
+    				if (!scanner.nextLine())
+    					throw new CylindricalMatrixInputParserException("Invalid number of columns");
+    				parseLine(scanner, column, true, "Invalid number of rows");
+    				solver.addColumn(column);
+    			}
+    		}
+    		finally {
+    			scanner.close();
+    		}
+    		solver.finish();
+    		return solver;
+    	}
+    	finally {
+    		if (solver != null)
+    			solver.close();
+    	}
+    }
+    
+    /**
+     * Given a connection to a batch input file, builds the graph of the matrix and reads the queries that follow it.
+     * A batch input file has a B1 or B2 header, the matrix dimensions without a source and a destination, the rows
+     * of the matrix, and then one query per line: the source and the destination ids separated by a space
+     *
+     *Example of a batch configuration for Bonus1 version:
+     *B1
+     *3 4
+     *3 4 1 2
+     *6 1 8 2
+     *5 9 3 9
+     *1,1 3,4
+     *2,2 1,4
+     *
+     * @param input A reader currently pointing to a batch input file.
+     * @return The GridGraph constructed based on the matrix in the provided input file, the queries are given by
+     * getQueries
+     * @throws IOException If there are any errors reading from the input Reader.
+     * @throws CylindricalMatrixInputParserException If the input file is malformed
+     */
+    public GridGraph buildBatchGraph(Reader input) throws IOException, CylindricalMatrixInputParserException {
+        reset();
+        MatrixScanner scanner = new MatrixScanner(input);
+        readMatrix(scanner, false);
+        if (isStandard(header))
+        	throw new CylindricalMatrixInputParserException("A batch input file needs a B1 or B2 header");
+        queries = new ArrayList<int[]>();
+        String line;
+        while ((line = scanner.readLine()) != null) {
+        	line = line.trim();
+        	if (line.length() == 0)
+        		continue;
+        	String[] tokens = line.split("[ ]+");
+        	if (tokens.length != 2)
+        		throw new CylindricalMatrixInputParserException("Invalid query, please provide a source and a destination");
+        	int[] source = matrixCell(tokens[0], "query");
+        	int[] destination = matrixCell(tokens[1], "query");
+        	queries.add(new int[] {source[0], source[1], destination[0], destination[1]});
+        }
+        GridGraph gridGraph = new GridGraph(weights, NeighborStencil.forHeader(header));
+        setEdgeWeightRange(gridGraph);
+        return gridGraph;
+    }
+    
+    /**
+     * @return the queries read by buildBatchGraph, each one is the zero based source row, source column, 
+     * destination row and destination column
+     */
+    public List<int[]> getQueries() {
+    	return queries;
+    }
+    
+    /**
+     * @param nodeId id of a cell in a query, or of the source or destination of the header
+     * @param role what the cell is, for the error messages: query, source or destination
+     * @return the zero based row and column of the cell
+     * @throws CylindricalMatrixInputParserException if the id is not a cell of the matrix
+     */
+    private int[] matrixCell(String nodeId, String role) throws CylindricalMatrixInputParserException {
+    	if (nodeId.indexOf(",") == -1)
+    		throw new CylindricalMatrixInputParserException("Invalid " + role + " coordinates " + nodeId);
+    	int[] ij;
+    	try {
+    		ij = sourceDimensions(nodeId);
+    	}
+    	catch (NumberFormatException e) {
+    		throw new CylindricalMatrixInputParserException("Invalid " + role + " coordinates " + nodeId);
+    	}
+    	if (ij[0] < 1 || ij[0] > rows || ij[1] < 1 || ij[1] > cols)
+    		throw new CylindricalMatrixInputParserException("The " + role + " coordinates " + nodeId + " are outside the matrix");
+    	return new int[] {ij[0]-1, ij[1]-1};
+    }
+    
+    /**
+     * The weight of an edge is the weight of a cell, so when the cell weights are small non-negative integers
+     * the graph can solve with a bucket queue
+     * @param graph
+     */
+    private void setEdgeWeightRange(Graph graph) {
+    	if (minimumCellWeight >= 0 && minimumCellWeight <= maximumCellWeight && maximumCellWeight <= MAXIMUM_BUCKET_WEIGHT)
+    		graph.setEdgeWeightRange(minimumCellWeight, maximumCellWeight);
+    }
+    
+    /**
+     * Reads the header, the dimensions, the source and destination (for Bonus1 and Bonus2) and the weight matrix
+     * from the input file
+     * @param scanner
+     * @param withEndpoints false for a batch input file, where the dimensions are not followed by a source and
+     * a destination
+     * @throws IOException
+     * @throws CylindricalMatrixInputParserException
+     */
+    private void readMatrix(MatrixScanner scanner, boolean withEndpoints) throws IOException, CylindricalMatrixInputParserException {
+        readMatrix(scanner, scanner.readLine(), withEndpoints);
+    }
+    
+    /**
+     * Reads the matrix of an input file whose header line has already been read
+     * @param scanner
+     * @param headerLine first line of the input file
+     * @param withEndpoints false for a batch input file
+     * @throws IOException
+     * @throws CylindricalMatrixInputParserException
+     */
+    private void readMatrix(MatrixScanner scanner, String headerLine, boolean withEndpoints) throws IOException, CylindricalMatrixInputParserException {
+        readDimensions(headerLine, scanner.readLine(), withEndpoints);
+        
+        //the standard version allows more than one space between the weights
+        boolean loose = isStandard(header);
+        weights = createWeightMatrix();
+        int[] rowWeights = new int[cols];
+        minimumCellWeight = Integer.MAX_VALUE;
+        maximumCellWeight = Integer.MIN_VALUE;
+        for (int row = 0; row < rows; row++) {
+        	if (!scanner.nextLine())
+        		throw new CylindricalMatrixInputParserException("Invalid number of rows");
+        	parseLine(scanner, rowWeights, loose, "Invalid number of columns");
+        	
+        	for (int col = 0; col < cols; col++) {
+        		minimumCellWeight = Math.min(minimumCellWeight, rowWeights[col]);
+        		maximumCellWeight = Math.max(maximumCellWeight, rowWeights[col]);
+        	}
+        	weights.setRow(row, rowWeights);
+        }
+    }
+    
+    /**
+     * Parses the weights of the line read last by the scanner
+     * @param scanner
+     * @param lineWeights set to the weights of the line
+     * @param loose true if more than one space can separate two weights
+     * @param countError message of the error if the line does not have lineWeights.length weights
+     * @throws CylindricalMatrixInputParserException
+     */
+    private void parseLine(MatrixScanner scanner, int[] lineWeights, boolean loose, String countError) throws CylindricalMatrixInputParserException {
+    	//the lines of plain weights are parsed without making Strings, the others are split to be checked
+    	if (!scanner.parseRow(lineWeights, loose)) {
+    		String[] tokens = scanner.lineString().split(loose ? "[ ]+" : " ");
+    		if (tokens.length != lineWeights.length)
+    			throw new CylindricalMatrixInputParserException(countError);
+    		for (int i = 0; i < lineWeights.length; i++)
+    			lineWeights[i] = Integer.parseInt(tokens[i]);
+    	}
+    }
+    
+    /**
+     * @return the weights of the matrix read last, with one array per row
+     */
+    private int[][] weightArrays() {
+    	int[][] weightMatrix = new int[rows][cols];
+    	for (int row = 0; row < rows; row++) {
+    		for (int col = 0; col < cols; col++)
+    			weightMatrix[row][col] = weights.get(row, col);
+    	}
+    	return weightMatrix;
+    }
+    
+    /**
+     * Reads the header, the dimensions and the source and destination (for Bonus1 and Bonus2)
+     * @param headerLine first line of the input file
+     * @param matrixDimensionsLine second line of the input file
+     * @param withEndpoints false for a batch input file, where the dimensions are not followed by a source and
+     * a destination
+     * @throws CylindricalMatrixInputParserException
+     */
+    private void readDimensions(String headerLine, String matrixDimensionsLine, boolean withEndpoints) throws CylindricalMatrixInputParserException {
+        header = headerLine.trim();
+        
+        if (!isStandard(header) && !isBonus1(header) && !isBonus2(header))
+        	throw new CylindricalMatrixInputParserException("The input file is missing a valid header (S, B1, B2)");
+        
+        StringTokenizer tokenizer = new StringTokenizer(matrixDimensionsLine, " ");
+        
+        String rowsStr = tokenizer.nextToken().trim();
+        if (!tokenizer.hasMoreElements())
+        	throw new CylindricalMatrixInputParserException("Please provide two numbers for matrix dimensions in the input file");
+        String columnsStr = tokenizer.nextToken().trim();
+        if (rowsStr == null || columnsStr == null)
+        	throw new CylindricalMatrixInputParserException("Please provide valid numbers for matrix dimensions in the input file");
+        
+        rows = Integer.parseInt(rowsStr);
+        cols = Integer.parseInt(columnsStr);
+        
+        if (withEndpoints && (isBonus1(header) || isBonus2(header))) {
+        	if (!tokenizer.hasMoreElements())
+        		throw new CylindricalMatrixInputParserException("Source coordinates missing");
+        	sourceNodeStr = tokenizer.nextToken().trim();
+        	if (!tokenizer.hasMoreElements())
+        		throw new CylindricalMatrixInputParserException("Destination coordinates missing");
+        	destNodeStr = tokenizer.nextToken().trim();
+        }
+    }
 
     /**
      * 
      * @param row
      * @param col
-     * @return the id made for a node based on its row and column
+     * @return the node made for the cell at a zero based row and column
      */
-	private String makeNodeId(int row, int col) {
-		return Integer.toString(row+1) + "," + Integer.toString(col+1);
+	private Node getNode(int row, int col) {
+		return nodes[row][col];
 	}
+
     
     /**
      * 
@@ -331,17 +837,10 @@ public class CylindricalMatrixInputParser {
      * Creates nodes for each cell of the input matrix
      */
     private void createAllNodesOfGraph(int rows, int columns) {
-    	try {
-	    	for (int row=0; row<rows; row++) {
-	    		for (int column = 0; column < columns; column++) {
-					String nodeId = makeNodeId(row, column); 
-	    			Node node = new Node(nodeId);
-	    			nodesMap.put(nodeId, node);
-	    		}
-	    	}
-    	}
-    	catch (IllegalArgumentException e) {
-    		System.out.println(e.getMessage());
+    	nodes = new Node[rows][columns];
+    	for (int row=0; row<rows; row++) {
+    		for (int column = 0; column < columns; column++)
+    			nodes[row][column] = new Node(row+1, column+1);
     	}
     }
     
@@ -352,7 +851,7 @@ public class CylindricalMatrixInputParser {
      * @param weight
      */
     private void buildEdgesFirstRowStandard(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge1 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge1);
     }
     
@@ -364,11 +863,11 @@ public class CylindricalMatrixInputParser {
      * @param weight2
      */
     private void buildEdgesForMiddleRowsStandard(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row-1, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge1 = new Edge(getNode(row-1, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge2 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge2);
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge3 = new Edge(getNode(row, col-1), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge3);
     }
     
@@ -380,20 +879,20 @@ public class CylindricalMatrixInputParser {
      * @param weight2
      */
     private void buildEdgesForLastRowStandard(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row-1, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge1 = new Edge(getNode(row-1, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge2 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge2);
 
 		// Add a path to the top row
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(0,  col)), weightMatrix[0][col]);
+		Edge edge3 = new Edge(getNode(row, col-1), getNode(0,  col), weightMatrix[0][col]);
 		graph.getEdges().add(edge3);
 		
 		// Add a path from the top row
-		Edge edge4 = new Edge(nodesMap.get(makeNodeId(0, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge4 = new Edge(getNode(0, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge4);
 
-		Edge edge5 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge5 = new Edge(getNode(row, col-1), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge5);
 
     }
@@ -405,9 +904,9 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForMiddleRowsFirstColumnBonus1(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge1 = new Edge(getNode(row, col), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge2 = new Edge(getNode(row-1, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge2);  	
     }
     
@@ -418,13 +917,13 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForLastRowsFirstColumnBonus1(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, 0)), weightMatrix[0][0]);
+		Edge edge1 = new Edge(getNode(row, col), getNode(0, 0), weightMatrix[0][0]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(0, 0)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge2 = new Edge(getNode(0, 0), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge2);
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge3 = new Edge(getNode(row, col), getNode(row-1, col), weightMatrix[row-1][col]);
         graph.getEdges().add(edge3);
-        Edge edge4 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+        Edge edge4 = new Edge(getNode(row-1, col), getNode(row, col), weightMatrix[row][col]);
         graph.getEdges().add(edge4);
     }
     
@@ -435,9 +934,9 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForFirstRowBonus1(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge1 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge2 = new Edge(getNode(row, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge2);    	
     }
     
@@ -448,21 +947,21 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForMiddleRowsBonus1(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row-1, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge1 = new Edge(getNode(row-1, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col-1)), weightMatrix[row-1][col-1]);
+		Edge edge2 = new Edge(getNode(row, col), getNode(row-1, col-1), weightMatrix[row-1][col-1]);
 		graph.getEdges().add(edge2);
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge3 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge3);
-		Edge edge4 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge4 = new Edge(getNode(row, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge4);
-		Edge edge5 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge5 = new Edge(getNode(row, col-1), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge5);
-		Edge edge6 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge6 = new Edge(getNode(row-1, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge6);
-		Edge edge7 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge7 = new Edge(getNode(row-1, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge7);
-		Edge edge8 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge8 = new Edge(getNode(row, col), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge8);
 
     }
@@ -474,33 +973,33 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForLastRowBonus1(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge1 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge2 = new Edge(getNode(row, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge2);
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(0, col)), weightMatrix[0][col]);
+		Edge edge3 = new Edge(getNode(row, col-1), getNode(0, col), weightMatrix[0][col]);
 		graph.getEdges().add(edge3);
-		Edge edge4 = new Edge(nodesMap.get(makeNodeId(0, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge4 = new Edge(getNode(0, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge4);
-		Edge edge5 = new Edge(nodesMap.get(makeNodeId(0, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge5 = new Edge(getNode(0, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge5);
-		Edge edge6 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, col-1)), weightMatrix[0][col-1]);
+		Edge edge6 = new Edge(getNode(row, col), getNode(0, col-1), weightMatrix[0][col-1]);
 		graph.getEdges().add(edge6);
-		Edge edge7 = new Edge(nodesMap.get(makeNodeId(row-1, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge7 = new Edge(getNode(row-1, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge7);
-		Edge edge8 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col-1)), weightMatrix[row-1][col-1]);
+		Edge edge8 = new Edge(getNode(row, col), getNode(row-1, col-1), weightMatrix[row-1][col-1]);
 		graph.getEdges().add(edge8);
-		Edge edge9 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge9 = new Edge(getNode(row-1, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge9);
-		Edge edge10 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge10 = new Edge(getNode(row, col), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge10);
-		Edge edge11 = new Edge(nodesMap.get(makeNodeId(0, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge11 = new Edge(getNode(0, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge11);
-		Edge edge12 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, col)), weightMatrix[0][col]);
+		Edge edge12 = new Edge(getNode(row, col), getNode(0, col), weightMatrix[0][col]);
 		graph.getEdges().add(edge12);
-		Edge edge13 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge13 = new Edge(getNode(row, col-1), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge13);
-		Edge edge14 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge14 = new Edge(getNode(row-1, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge14);
    	
     }
@@ -512,33 +1011,33 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForLastRowBonus2(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge1 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge2 = new Edge(getNode(row, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge2);
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(0, col)), weightMatrix[0][col]);
+		Edge edge3 = new Edge(getNode(row, col-1), getNode(0, col), weightMatrix[0][col]);
 		graph.getEdges().add(edge3);
-		Edge edge4 = new Edge(nodesMap.get(makeNodeId(0, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge4 = new Edge(getNode(0, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge4);
-		Edge edge5 = new Edge(nodesMap.get(makeNodeId(0, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge5 = new Edge(getNode(0, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge5);
-		Edge edge6 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, col-1)), weightMatrix[0][col-1]);
+		Edge edge6 = new Edge(getNode(row, col), getNode(0, col-1), weightMatrix[0][col-1]);
 		graph.getEdges().add(edge6);
-		Edge edge7 = new Edge(nodesMap.get(makeNodeId(row-1, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge7 = new Edge(getNode(row-1, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge7);
-		Edge edge8 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col-1)), weightMatrix[row-1][col-1]);
+		Edge edge8 = new Edge(getNode(row, col), getNode(row-1, col-1), weightMatrix[row-1][col-1]);
 		graph.getEdges().add(edge8);
-		Edge edge9 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge9 = new Edge(getNode(row-1, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge9);
-		Edge edge10 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge10 = new Edge(getNode(row, col), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge10);
-		Edge edge11 = new Edge(nodesMap.get(makeNodeId(0, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge11 = new Edge(getNode(0, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge11);
-		Edge edge12 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, col)), weightMatrix[0][col]);
+		Edge edge12 = new Edge(getNode(row, col), getNode(0, col), weightMatrix[0][col]);
 		graph.getEdges().add(edge12);
-		Edge edge13 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge13 = new Edge(getNode(row, col-1), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge13);
-		Edge edge14 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge14 = new Edge(getNode(row-1, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge14);
     }
     
@@ -549,13 +1048,13 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForMiddleRowsFirstColumnBonus2(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge1 = new Edge(getNode(row, col), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge2 = new Edge(getNode(row-1, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge2);  
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, weightMatrix[0].length-1)), weightMatrix[row-1][weightMatrix[0].length-1]);
+		Edge edge3 = new Edge(getNode(row, col), getNode(row-1, weightMatrix[0].length-1), weightMatrix[row-1][weightMatrix[0].length-1]);
 		graph.getEdges().add(edge3);  
-		Edge edge4 = new Edge(nodesMap.get(makeNodeId(row-1,  weightMatrix[0].length-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge4 = new Edge(getNode(row-1,  weightMatrix[0].length-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge4);
     }
     
@@ -566,21 +1065,21 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForLastRowsFirstColumnBonus2(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, 0)), weightMatrix[0][0]);
+		Edge edge1 = new Edge(getNode(row, col), getNode(0, 0), weightMatrix[0][0]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(0, 0)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge2 = new Edge(getNode(0, 0), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge2); 
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge3 = new Edge(getNode(row-1, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge3);
-		Edge edge4 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge4 = new Edge(getNode(row, col), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge4); 
-		Edge edge5 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, weightMatrix[0].length-1)), weightMatrix[0][weightMatrix[0].length-1]);
+		Edge edge5 = new Edge(getNode(row, col), getNode(0, weightMatrix[0].length-1), weightMatrix[0][weightMatrix[0].length-1]);
 		graph.getEdges().add(edge5);
-		Edge edge6 = new Edge(nodesMap.get(makeNodeId(0, weightMatrix[0].length-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge6 = new Edge(getNode(0, weightMatrix[0].length-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge6); 
-		Edge edge7 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, weightMatrix[row-1].length-1)), weightMatrix[row-1][weightMatrix[row-1].length-1]);
+		Edge edge7 = new Edge(getNode(row, col), getNode(row-1, weightMatrix[row-1].length-1), weightMatrix[row-1][weightMatrix[row-1].length-1]);
 		graph.getEdges().add(edge7);
-		Edge edge8 = new Edge(nodesMap.get(makeNodeId(row-1, weightMatrix[row-1].length-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge8 = new Edge(getNode(row-1, weightMatrix[row-1].length-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge8);
     }
     
@@ -591,13 +1090,13 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForFirstRowLastColumnBonus2(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, 0)), weightMatrix[row][0]);
+		Edge edge1 = new Edge(getNode(row, col), getNode(row, 0), weightMatrix[row][0]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row, 0)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge2 = new Edge(getNode(row, 0), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge2);
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge3 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge3);
-		Edge edge4 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge4 = new Edge(getNode(row, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge4);
     }
     
@@ -608,29 +1107,29 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForMiddleRowLastColumnBonus2(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge1 = new Edge(getNode(row-1, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge2 = new Edge(getNode(row, col), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge2);
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge3 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge3);
-		Edge edge4 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge4 = new Edge(getNode(row, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge4);
-		Edge edge5 = new Edge(nodesMap.get(makeNodeId(row, 0)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge5 = new Edge(getNode(row, 0), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge5);
-		Edge edge6 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, 0)), weightMatrix[row][0]);
+		Edge edge6 = new Edge(getNode(row, col), getNode(row, 0), weightMatrix[row][0]);
 		graph.getEdges().add(edge6);
-		Edge edge7 = new Edge(nodesMap.get(makeNodeId(row-1, 0)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge7 = new Edge(getNode(row-1, 0), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge7);
-		Edge edge8 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, 0)), weightMatrix[row-1][0]);
+		Edge edge8 = new Edge(getNode(row, col), getNode(row-1, 0), weightMatrix[row-1][0]);
 		graph.getEdges().add(edge8);
-		Edge edge9 = new Edge(nodesMap.get(makeNodeId(row-1, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge9 = new Edge(getNode(row-1, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge9);
-		Edge edge10 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col-1)), weightMatrix[row-1][col-1]);
+		Edge edge10 = new Edge(getNode(row, col), getNode(row-1, col-1), weightMatrix[row-1][col-1]);
 		graph.getEdges().add(edge10);
-		Edge edge11 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row-1, weightMatrix[row-1].length-1)), weightMatrix[row-1][weightMatrix[row-1].length-1]);
+		Edge edge11 = new Edge(getNode(row, col-1), getNode(row-1, weightMatrix[row-1].length-1), weightMatrix[row-1][weightMatrix[row-1].length-1]);
 		graph.getEdges().add(edge11);
-		Edge edge12 = new Edge(nodesMap.get(makeNodeId(row-1, weightMatrix[row-1].length-1)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge12 = new Edge(getNode(row-1, weightMatrix[row-1].length-1), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge12);
     }
     
@@ -641,45 +1140,45 @@ public class CylindricalMatrixInputParser {
      * @param weightMatrix
      */
     private void buildEdgesForLastRowLastColumnBonus2(int row, int col, int[][] weightMatrix) {
-		Edge edge1 = new Edge(nodesMap.get(makeNodeId(row-1, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge1 = new Edge(getNode(row-1, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge1);
-		Edge edge2 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col-1)), weightMatrix[row-1][col-1]);
+		Edge edge2 = new Edge(getNode(row, col), getNode(row-1, col-1), weightMatrix[row-1][col-1]);
 		graph.getEdges().add(edge2);
-		Edge edge3 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge3 = new Edge(getNode(row-1, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge3);
-		Edge edge4 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge4 = new Edge(getNode(row, col), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge4);
-		Edge edge5 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge5 = new Edge(getNode(row, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge5);
-		Edge edge6 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge6 = new Edge(getNode(row, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge6);
-		Edge edge7 = new Edge(nodesMap.get(makeNodeId(row-1, 0)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge7 = new Edge(getNode(row-1, 0), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge7);
-		Edge edge8 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row-1, 0)), weightMatrix[row-1][0]);
+		Edge edge8 = new Edge(getNode(row, col), getNode(row-1, 0), weightMatrix[row-1][0]);
 		graph.getEdges().add(edge8);
-		Edge edge9 = new Edge(nodesMap.get(makeNodeId(row, 0)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge9 = new Edge(getNode(row, 0), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge9);
-		Edge edge10 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(row, 0)), weightMatrix[row][0]);
+		Edge edge10 = new Edge(getNode(row, col), getNode(row, 0), weightMatrix[row][0]);
 		graph.getEdges().add(edge10);
-		Edge edge11 = new Edge(nodesMap.get(makeNodeId(0, 0)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge11 = new Edge(getNode(0, 0), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge11);
-		Edge edge12 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, 0)), weightMatrix[0][0]);
+		Edge edge12 = new Edge(getNode(row, col), getNode(0, 0), weightMatrix[0][0]);
 		graph.getEdges().add(edge12);
-		Edge edge13 = new Edge(nodesMap.get(makeNodeId(0, col)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge13 = new Edge(getNode(0, col), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge13);
-		Edge edge14 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, col)), weightMatrix[0][col]);
+		Edge edge14 = new Edge(getNode(row, col), getNode(0, col), weightMatrix[0][col]);
 		graph.getEdges().add(edge14);
-		Edge edge15 = new Edge(nodesMap.get(makeNodeId(0, col-1)), nodesMap.get(makeNodeId(row, col)), weightMatrix[row][col]);
+		Edge edge15 = new Edge(getNode(0, col-1), getNode(row, col), weightMatrix[row][col]);
 		graph.getEdges().add(edge15);
-		Edge edge16 = new Edge(nodesMap.get(makeNodeId(row, col)), nodesMap.get(makeNodeId(0, col-1)), weightMatrix[0][col-1]);
+		Edge edge16 = new Edge(getNode(row, col), getNode(0, col-1), weightMatrix[0][col-1]);
 		graph.getEdges().add(edge16);
-		Edge edge17 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(row-1, col)), weightMatrix[row-1][col]);
+		Edge edge17 = new Edge(getNode(row, col-1), getNode(row-1, col), weightMatrix[row-1][col]);
 		graph.getEdges().add(edge17);
-		Edge edge18 = new Edge(nodesMap.get(makeNodeId(row-1, col)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+		Edge edge18 = new Edge(getNode(row-1, col), getNode(row, col-1), weightMatrix[row][col-1]);
 		graph.getEdges().add(edge18);
-	    Edge edge19 = new Edge(nodesMap.get(makeNodeId(row, col-1)), nodesMap.get(makeNodeId(0, weightMatrix[0].length-1)), weightMatrix[0][weightMatrix[0].length-1]);
+	    Edge edge19 = new Edge(getNode(row, col-1), getNode(0, weightMatrix[0].length-1), weightMatrix[0][weightMatrix[0].length-1]);
 	    graph.getEdges().add(edge19);
-	    Edge edge20 = new Edge(nodesMap.get(makeNodeId(0, weightMatrix[0].length-1)), nodesMap.get(makeNodeId(row, col-1)), weightMatrix[row][col-1]);
+	    Edge edge20 = new Edge(getNode(0, weightMatrix[0].length-1), getNode(row, col-1), weightMatrix[row][col-1]);
 	    graph.getEdges().add(edge20);
     }
 
@@ -0,0 +1,36 @@
+package com.solium.cylindricalMatrix.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.solium.cylindricalMatrix.GridGraph;
+
+/**
+ * Reads the input files of a stream one after the other, for instance input files written to the standard input
+ * by another program. Each input file is an S, B1 or B2 input file, the blank lines between them are skipped.
+ *
+ * An input file is only known to end after its last row, so the stream cannot be read any further once an input
+ * file is malformed
+ */
+
+public class InputFileStream {
+
+	private final MatrixScanner scanner;
+	private final CylindricalMatrixInputParser parser = new CylindricalMatrixInputParser();
+
+	/**
+	 * @param input A reader pointing to the first input file of the stream.
+	 */
+	public InputFileStream(Reader input) {
+		this.scanner = new MatrixScanner(input);
+	}
+
+	/**
+	 * @return the graph of the next input file, null at the end of the stream
+	 * @throws IOException If there are any errors reading from the stream.
+	 * @throws CylindricalMatrixInputParserException If the input file is malformed
+	 */
+	public GridGraph next() throws IOException, CylindricalMatrixInputParserException {
+		return parser.buildNextGridGraph(scanner);
+	}
+}
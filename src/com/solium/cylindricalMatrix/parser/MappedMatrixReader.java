@@ -0,0 +1,358 @@
+package com.solium.cylindricalMatrix.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.solium.cylindricalMatrix.WritableWeightMatrix;
+
+/**
+ * Reads a matrix input file mapped in memory. The file is mapped in segments of 1GB so that files larger than
+ * 2GB can be read. The lines of the matrix are found by several threads, each one looking for the line ends of its
+ * part of the file, and the rows are then parsed by several threads straight into the weight matrix.
+ *
+ * The weights are read as ASCII bytes, a row that is not made of plain decimal weights is decoded with the
+ * default charset (like FileReader does) and split, so that the errors are the errors of MatrixScanner
+ */
+
+class MappedMatrixReader {
+
+	private static final int SEGMENT_BITS = 30;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+	private static final int BLOCK_BYTES = 1 << 16; //bytes copied at once to look for line ends
+	private static final long BYTES_PER_TASK = 1 << 20; //smallest part of the file searched for line ends by a task
+	private static final int CELLS_PER_TASK = 1 << 16; //smallest number of cells parsed by a task
+
+	private final MappedByteBuffer[] segments;
+	private final long size;
+	private long position; //start of the next line read by readLine
+
+	/**
+	 * @param file
+	 * @throws IOException if the file cannot be mapped
+	 */
+	MappedMatrixReader(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			size = channel.size();
+			segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+			for (int i = 0; i < segments.length; i++) {
+				long start = (long) i << SEGMENT_BITS;
+				// the mappings stay valid once the file is closed
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, SEGMENT_MASK + 1));
+			}
+		}
+		finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * @param at position in the file
+	 * @return the byte at a position
+	 */
+	private byte byteAt(long at) {
+		return segments[(int) (at >>> SEGMENT_BITS)].get((int) (at & SEGMENT_MASK));
+	}
+
+	/**
+	 * Copies bytes of the file, the segments are duplicated so that several threads can copy at the same time
+	 * @param start position in the file of the first byte
+	 * @param target
+	 * @param length number of bytes
+	 */
+	private void copy(long start, byte[] target, int length) {
+		int copied = 0;
+		while (copied < length) {
+			long at = start + copied;
+			ByteBuffer segment = segments[(int) (at >>> SEGMENT_BITS)].duplicate();
+			segment.position((int) (at & SEGMENT_MASK));
+			int count = Math.min(length - copied, segment.remaining());
+			segment.get(target, copied, count);
+			copied += count;
+		}
+	}
+
+	/**
+	 * @param at position of a line end
+	 * @return the start of the line after it
+	 */
+	private long nextLineStart(long at) {
+		return byteAt(at) == '\r' && at + 1 < size && byteAt(at + 1) == '\n' ? at + 2 : at + 1;
+	}
+
+	/**
+	 * Reads the lines before the matrix (the header and the dimensions)
+	 * @return the next line, null if there is no line left
+	 */
+	String readLine() {
+		if (position >= size)
+			return null;
+		long end = position;
+		while (end < size && byteAt(end) != '\n' && byteAt(end) != '\r')
+			end++;
+		byte[] line = new byte[(int) (end - position)];
+		copy(position, line, line.length);
+		position = end < size ? nextLineStart(end) : size;
+		return new String(line, Charset.defaultCharset());
+	}
+
+	/**
+	 * Finds the lines that follow the lines read by readLine, in parallel
+	 * @param count number of lines needed
+	 * @param pool
+	 * @return the start of each line and the end of each line (the position of its \r or \n, or the size of the
+	 * file), fewer than count lines if the file ends before
+	 */
+	long[][] findLines(int count, ForkJoinPool pool) {
+		if (count <= 0 || position >= size)
+			return new long[][] {new long[0], new long[0]};
+		long[] lineEnds = pool.invoke(new LineEndsTask(position, size));
+		int available = lineEnds.length + 1;
+		// a line end at the end of the file does not start a line
+		if (lineEnds.length > 0 && nextLineStart(lineEnds[lineEnds.length - 1]) >= size)
+			available--;
+		int lines = Math.min(count, available);
+		long[] starts = new long[lines];
+		long[] ends = new long[lines];
+		for (int line = 0; line < lines; line++) {
+			starts[line] = line == 0 ? position : nextLineStart(lineEnds[line - 1]);
+			ends[line] = line < lineEnds.length ? lineEnds[line] : size;
+		}
+		return new long[][] {starts, ends};
+	}
+
+	/**
+	 * Parses the rows of the matrix in parallel
+	 * @param starts start of the line of each row
+	 * @param ends end of the line of each row
+	 * @param matrix weight matrix, its rows are set by the threads parsing them
+	 * @param loose true if more than one space can separate two weights
+	 * @param pool
+	 * @return the smallest and the largest weight of the rows
+	 * @throws CylindricalMatrixInputParserException if a row is malformed, for the first malformed row
+	 */
+	int[] parseRows(long[] starts, long[] ends, WritableWeightMatrix matrix, boolean loose, ForkJoinPool pool) throws CylindricalMatrixInputParserException {
+		int cols = Math.max(1, matrix.getColumns());
+		RowsResult result = pool.invoke(new RowsTask(starts, ends, matrix, loose, 0, starts.length, Math.max(1, CELLS_PER_TASK / cols)));
+		if (result.error instanceof CylindricalMatrixInputParserException)
+			throw (CylindricalMatrixInputParserException) result.error;
+		if (result.error instanceof RuntimeException)
+			throw (RuntimeException) result.error;
+		return new int[] {result.minimum, result.maximum};
+	}
+
+	/**
+	 * Parses a row like the Reader parser does, straight from the bytes when the row only has plain decimal weights
+	 * @param line bytes of the line of the row
+	 * @param length length of the line
+	 * @param row weights of the row
+	 * @param loose
+	 * @throws CylindricalMatrixInputParserException if the row does not have row.length weights
+	 */
+	private static void parseRow(byte[] line, int length, int[] row, boolean loose) throws CylindricalMatrixInputParserException {
+		if (parsePlainRow(line, length, row, loose))
+			return;
+		String[] tokens = new String(line, 0, length, Charset.defaultCharset()).split(loose ? "[ ]+" : " ");
+		if (tokens.length != row.length)
+			throw new CylindricalMatrixInputParserException("Invalid number of columns");
+		for (int col = 0; col < row.length; col++)
+			row[col] = Integer.parseInt(tokens[col]);
+	}
+
+	/**
+	 * See MatrixScanner.parseRow
+	 * @param line
+	 * @param length
+	 * @param row
+	 * @param loose
+	 * @return false if the line is not made of exactly row.length plain weights
+	 */
+	private static boolean parsePlainRow(byte[] line, int length, int[] row, boolean loose) {
+		// an empty line is one empty weight for String.split
+		if (length == 0)
+			return false;
+		int i = 0;
+		int col = 0;
+		while (i < length) {
+			if (col == row.length)
+				return trailingSpaces(line, i, length);
+			boolean negative = false;
+			byte c = line[i];
+			if (c == '-' || c == '+') {
+				negative = c == '-';
+				i++;
+			}
+			int start = i;
+			int limitValue = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+			int multiplyMinimum = limitValue / 10;
+			int value = 0;
+			while (i < length && line[i] != ' ') {
+				int digit = line[i] - '0';
+				if (digit < 0 || digit > 9 || value < multiplyMinimum)
+					return false;
+				value *= 10;
+				if (value < limitValue + digit)
+					return false;
+				value -= digit;
+				i++;
+			}
+			if (i == start)
+				return false;
+			row[col++] = negative ? value : -value;
+			if (i < length) {
+				i++;
+				if (loose) {
+					while (i < length && line[i] == ' ')
+						i++;
+				}
+				else if (i < length && line[i] == ' ')
+					return col == row.length && trailingSpaces(line, i, length);
+			}
+		}
+		return col == row.length;
+	}
+
+	private static boolean trailingSpaces(byte[] line, int i, int length) {
+		for (; i < length; i++) {
+			if (line[i] != ' ')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the line ends of a part of the file: \r, or \n that does not follow \r
+	 */
+	private class LineEndsTask extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+		private final long start;
+		private final long end;
+
+		LineEndsTask(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (end - start > BYTES_PER_TASK) {
+				long middle = start + (end - start) / 2;
+				LineEndsTask right = new LineEndsTask(middle, end);
+				right.fork();
+				long[] leftEnds = new LineEndsTask(start, middle).compute();
+				long[] rightEnds = right.join();
+				long[] ends = new long[leftEnds.length + rightEnds.length];
+				System.arraycopy(leftEnds, 0, ends, 0, leftEnds.length);
+				System.arraycopy(rightEnds, 0, ends, leftEnds.length, rightEnds.length);
+				return ends;
+			}
+			long[] ends = new long[16];
+			int count = 0;
+			byte[] block = new byte[BLOCK_BYTES];
+			byte previous = start == 0 ? 0 : byteAt(start - 1);
+			for (long blockStart = start; blockStart < end; blockStart += BLOCK_BYTES) {
+				int length = (int) Math.min(BLOCK_BYTES, end - blockStart);
+				copy(blockStart, block, length);
+				for (int i = 0; i < length; i++) {
+					byte b = block[i];
+					if (b == '\r' || (b == '\n' && previous != '\r')) {
+						if (count == ends.length) {
+							long[] larger = new long[count * 2];
+							System.arraycopy(ends, 0, larger, 0, count);
+							ends = larger;
+						}
+						ends[count++] = blockStart + i;
+					}
+					previous = b;
+				}
+			}
+			long[] found = new long[count];
+			System.arraycopy(ends, 0, found, 0, count);
+			return found;
+		}
+	}
+
+	/**
+	 * Smallest and largest weight of some rows, or the error of the first malformed row
+	 */
+	private static class RowsResult {
+		int minimum = Integer.MAX_VALUE;
+		int maximum = Integer.MIN_VALUE;
+		Exception error;
+	}
+
+	/**
+	 * Parses some rows of the matrix. A task gives the error of its first malformed row instead of throwing it, so
+	 * that the error of the first malformed row of the matrix is reported whichever thread finds it
+	 */
+	private class RowsTask extends RecursiveTask<RowsResult> {
+		private static final long serialVersionUID = 1L;
+		private final long[] starts;
+		private final long[] ends;
+		private final WritableWeightMatrix matrix;
+		private final boolean loose;
+		private final int first;
+		private final int last;
+		private final int rowsPerTask;
+
+		RowsTask(long[] starts, long[] ends, WritableWeightMatrix matrix, boolean loose, int first, int last, int rowsPerTask) {
+			this.starts = starts;
+			this.ends = ends;
+			this.matrix = matrix;
+			this.loose = loose;
+			this.first = first;
+			this.last = last;
+			this.rowsPerTask = rowsPerTask;
+		}
+
+		@Override
+		protected RowsResult compute() {
+			if (last - first > rowsPerTask) {
+				int middle = (first + last) >>> 1;
+				RowsTask right = new RowsTask(starts, ends, matrix, loose, middle, last, rowsPerTask);
+				right.fork();
+				RowsResult result = new RowsTask(starts, ends, matrix, loose, first, middle, rowsPerTask).compute();
+				RowsResult rightResult = right.join();
+				// the rows of the left task come first, so its error is the one reported
+				if (result.error == null) {
+					result.error = rightResult.error;
+					result.minimum = Math.min(result.minimum, rightResult.minimum);
+					result.maximum = Math.max(result.maximum, rightResult.maximum);
+				}
+				return result;
+			}
+			RowsResult result = new RowsResult();
+			byte[] line = new byte[256];
+			int[] weights = new int[matrix.getColumns()];
+			try {
+				for (int row = first; row < last; row++) {
+					int length = (int) (ends[row] - starts[row]);
+					if (length > line.length)
+						line = new byte[Math.max(length, line.length * 2)];
+					copy(starts[row], line, length);
+					parseRow(line, length, weights, loose);
+					for (int weight : weights) {
+						result.minimum = Math.min(result.minimum, weight);
+						result.maximum = Math.max(result.maximum, weight);
+					}
+					matrix.setRow(row, weights);
+				}
+			}
+			catch (CylindricalMatrixInputParserException e) {
+				result.error = e;
+			}
+			catch (RuntimeException e) {
+				result.error = e;
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.solium.cylindricalMatrix.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads an input file line by line into buffers that are reused for every line, and parses the weights of a
+ * matrix row straight from the characters of the line, so that reading a matrix does not make a String per row
+ * nor per cell.
+ *
+ * Lines end like for BufferedReader.readLine (\n, \r or \r\n). A row is only parsed here when it is made of
+ * plain decimal weights with the expected separators, any other row is left to the caller, which can split it as
+ * a String and report the error or accept what Integer.parseInt accepts
+ */
+
+class MatrixScanner {
+
+	private final Reader input;
+	private final char[] buffer = new char[1 << 16];
+	private int position; //next character of the buffer to read
+	private int limit; //number of characters in the buffer
+	private boolean skipLineFeed; //the last line ended with \r, a \n right after it belongs to the same line end
+	private char[] line = new char[256];
+	private int lineLength;
+
+	/**
+	 * @param input
+	 */
+	MatrixScanner(Reader input) {
+		this.input = input;
+	}
+
+	/**
+	 * Reads the next line into the line buffer
+	 * @return false if there is no line left
+	 * @throws IOException
+	 */
+	boolean nextLine() throws IOException {
+		lineLength = 0;
+		boolean read = false;
+		while (true) {
+			if (position == limit) {
+				limit = input.read(buffer, 0, buffer.length);
+				position = 0;
+				if (limit <= 0) {
+					limit = 0;
+					return read;
+				}
+			}
+			if (skipLineFeed) {
+				skipLineFeed = false;
+				if (buffer[position] == '\n') {
+					position++;
+					continue;
+				}
+			}
+			read = true;
+			// copy up to the end of the line, or of the buffer
+			int start = position;
+			while (position < limit && buffer[position] != '\n' && buffer[position] != '\r')
+				position++;
+			append(start, position);
+			if (position < limit) {
+				skipLineFeed = buffer[position] == '\r';
+				position++;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @return the next line, null if there is no line left
+	 * @throws IOException
+	 */
+	String readLine() throws IOException {
+		return nextLine() ? lineString() : null;
+	}
+
+	/**
+	 * @return the line read last, as a String
+	 */
+	String lineString() {
+		return new String(line, 0, lineLength);
+	}
+
+	/**
+	 * Parses the weights of the line read last when they are plain decimal integers (with an optional sign) that
+	 * fit in an int, separated by one space, or by one or more spaces if loose. Trailing spaces are ignored
+	 * @param row weights of the row, set only if the line is parsed
+	 * @param loose true if more than one space can separate two weights
+	 * @return false if the line is not made of exactly row.length such weights
+	 */
+	boolean parseRow(int[] row, boolean loose) {
+		// an empty line is one empty weight for String.split
+		if (lineLength == 0)
+			return false;
+		int i = 0;
+		int col = 0;
+		while (i < lineLength) {
+			if (col == row.length)
+				return trailingSpaces(i);
+			boolean negative = false;
+			char c = line[i];
+			if (c == '-' || c == '+') {
+				negative = c == '-';
+				i++;
+			}
+			int start = i;
+			// accumulate negatively like Integer.parseInt, so that Integer.MIN_VALUE can be read
+			int limitValue = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+			int multiplyMinimum = limitValue / 10;
+			int value = 0;
+			while (i < lineLength && line[i] != ' ') {
+				int digit = line[i] - '0';
+				if (digit < 0 || digit > 9 || value < multiplyMinimum)
+					return false;
+				value *= 10;
+				if (value < limitValue + digit)
+					return false;
+				value -= digit;
+				i++;
+			}
+			if (i == start)
+				return false;
+			row[col++] = negative ? value : -value;
+			if (i < lineLength) {
+				// skip the separator
+				i++;
+				if (loose) {
+					while (i < lineLength && line[i] == ' ')
+						i++;
+				}
+				else if (i < lineLength && line[i] == ' ')
+					return col == row.length && trailingSpaces(i);
+			}
+		}
+		return col == row.length;
+	}
+
+	/**
+	 * @param i
+	 * @return true if the line read last only has spaces from i
+	 */
+	private boolean trailingSpaces(int i) {
+		for (; i < lineLength; i++) {
+			if (line[i] != ' ')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Closes the Reader
+	 * @throws IOException
+	 */
+	void close() throws IOException {
+		input.close();
+	}
+
+	private void append(int start, int end) {
+		int length = end - start;
+		if (lineLength + length > line.length) {
+			char[] larger = new char[Math.max(line.length * 2, lineLength + length)];
+			System.arraycopy(line, 0, larger, 0, lineLength);
+			line = larger;
+		}
+		System.arraycopy(buffer, start, line, lineLength, length);
+		lineLength += length;
+	}
+}
@@ -0,0 +1,312 @@
+package com.solium.cylindricalMatrix.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.ShortestPath;
+import com.solium.cylindricalMatrix.ShortestPathTreeCache;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Long running solver answering over HTTP on the loopback interface, so that a query does not pay for starting a
+ * JVM and warming it up. The answers are the lines the program prints: the path and then the minimum weight.
+ *
+ * POST /solve with an input file as the body solves it once.
+ * PUT /matrices/name with an input file as the body loads it and solves its problem, which is then answered by
+ * GET /matrices/name without solving it again. GET /matrices/name?from=i,j&to=i,j answers a query between two
+ * cells of a loaded matrix, from the shortest path trees cached for the matrix. DELETE /matrices/name unloads it.
+ *
+ * Each request is handled on a virtual thread when the JVM has them (Java 21), and on a pool of one thread per
+ * processor otherwise. At most maximumRequests requests are admitted at a time, being handled or waiting for a
+ * thread: the others are answered 503 straight away instead of piling up
+ */
+
+public class SolverServer {
+
+	private static final String ASCII = "US-ASCII";
+
+	private final HttpServer server;
+	private final ExecutorService workers;
+	private final boolean virtualThreads;
+	private final Semaphore admissions;
+	private final ConcurrentMap<String, LoadedMatrix> matrices = new ConcurrentHashMap<String, LoadedMatrix>();
+	//trees of the queries on the loaded matrices, keyed by the content of the matrix so it is shared by all of them
+	private final ShortestPathTreeCache treeCache = new ShortestPathTreeCache(64, 256L << 20);
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * @param port port on the loopback interface, 0 for any free port
+	 * @param maximumRequests largest number of requests admitted at a time
+	 * @throws IOException if the port cannot be bound
+	 */
+	public SolverServer(int port, int maximumRequests) throws IOException {
+		if (maximumRequests < 1)
+			throw new IllegalArgumentException("The server must admit at least one request");
+		admissions = new Semaphore(maximumRequests);
+		ExecutorService virtual = newVirtualThreadExecutor();
+		virtualThreads = virtual != null;
+		workers = virtualThreads ? virtual : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), maximumRequests);
+		// the handlers run on the thread of the server, they only admit the request and hand it to a worker
+		server.createContext("/solve", new AdmissionHandler(new SolveHandler()));
+		server.createContext("/matrices/", new AdmissionHandler(new MatrixHandler()));
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops answering, lets the requests being handled finish for up to a second
+	 */
+	public void stop() {
+		server.stop(0);
+		workers.shutdown();
+		try {
+			workers.awaitTermination(1, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the port the server listens to
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * @return true if the requests are handled on virtual threads
+	 */
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * @return the number of requests answered 503 because too many requests were admitted
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return an executor starting a virtual thread per task, null if the JVM has no virtual threads
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		}
+		catch (Exception e) {
+			// before Java 21, or Java 19 and 20 without the preview features
+			return null;
+		}
+	}
+
+	/**
+	 * Admits a request if there is room for it, and has a worker handle it
+	 */
+	private class AdmissionHandler implements HttpHandler {
+		private final HttpHandler handler;
+
+		AdmissionHandler(HttpHandler handler) {
+			this.handler = handler;
+		}
+
+		public void handle(final HttpExchange exchange) throws IOException {
+			if (!admissions.tryAcquire()) {
+				rejected.incrementAndGet();
+				send(exchange, 503, "Too many requests, please retry later");
+				return;
+			}
+			try {
+				workers.execute(new Runnable() {
+					public void run() {
+						try {
+							handler.handle(exchange);
+						}
+						catch (Exception e) {
+							exchange.close();
+						}
+						finally {
+							admissions.release();
+						}
+					}
+				});
+			}
+			catch (RuntimeException e) {
+				// the server is stopping
+				admissions.release();
+				exchange.close();
+			}
+		}
+	}
+
+	/**
+	 * Solves the input file of the body
+	 */
+	private class SolveHandler implements HttpHandler {
+		public void handle(HttpExchange exchange) throws IOException {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, "Use POST with an input file");
+				return;
+			}
+			try {
+				GridGraph graph = new CylindricalMatrixInputParser().buildGridGraph(read(exchange.getRequestBody()));
+				send(exchange, 200, solve(graph));
+			}
+			catch (CylindricalMatrixInputParserException e) {
+				send(exchange, 400, e.getMessage());
+			}
+			catch (RuntimeException e) {
+				send(exchange, 400, "Invalid input file " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Loads, answers from and unloads the matrices kept by name
+	 */
+	private class MatrixHandler implements HttpHandler {
+		public void handle(HttpExchange exchange) throws IOException {
+			URI uri = exchange.getRequestURI();
+			String name = uri.getPath().substring("/matrices/".length());
+			String method = exchange.getRequestMethod();
+			if (name.length() == 0) {
+				send(exchange, 404, "Please name the matrix: /matrices/name");
+				return;
+			}
+			try {
+				if ("PUT".equals(method)) {
+					GridGraph graph = new CylindricalMatrixInputParser().buildGridGraph(read(exchange.getRequestBody()));
+					String answer = solve(graph);
+					graph.setTreeCache(treeCache);
+					matrices.put(name, new LoadedMatrix(graph, answer));
+					send(exchange, 200, graph.getRows() + " " + graph.getColumns() + "\n");
+					return;
+				}
+				if ("DELETE".equals(method)) {
+					send(exchange, matrices.remove(name) != null ? 200 : 404, name + "\n");
+					return;
+				}
+				if (!"GET".equals(method)) {
+					send(exchange, 405, "Use PUT, GET or DELETE");
+					return;
+				}
+				LoadedMatrix matrix = matrices.get(name);
+				if (matrix == null)
+					send(exchange, 404, "No matrix " + name);
+				else if (uri.getQuery() == null)
+					send(exchange, 200, matrix.answer);
+				else
+					send(exchange, 200, query(matrix.graph, uri.getQuery()));
+			}
+			catch (CylindricalMatrixInputParserException e) {
+				send(exchange, 400, e.getMessage());
+			}
+			catch (RuntimeException e) {
+				send(exchange, 400, "Invalid request " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * @param graph graph of an input file
+	 * @return the answer of the problem of the input file
+	 */
+	private static String solve(GridGraph graph) {
+		String path = graph.lexicographicallySmallestForDisplay();
+		return path + "\n" + graph.getMinimumWeight() + "\n";
+	}
+
+	/**
+	 * @param graph graph of a loaded matrix
+	 * @param query from=i,j&to=i,j with one based cells
+	 * @return the answer of the query
+	 * @throws CylindricalMatrixInputParserException if the query is malformed
+	 */
+	private static String query(GridGraph graph, String query) throws CylindricalMatrixInputParserException {
+		int[] from = null;
+		int[] to = null;
+		for (String parameter : query.split("&")) {
+			if (parameter.startsWith("from="))
+				from = cell(graph, parameter.substring("from=".length()));
+			else if (parameter.startsWith("to="))
+				to = cell(graph, parameter.substring("to=".length()));
+		}
+		if (from == null || to == null)
+			throw new CylindricalMatrixInputParserException("Invalid query, please provide from=i,j&to=i,j");
+		ShortestPath path = graph.findShortestPath(from[0], from[1], to[0], to[1]);
+		return path + "\n" + path.getWeight() + "\n";
+	}
+
+	/**
+	 * @param graph
+	 * @param id one based id of a cell: i,j
+	 * @return the zero based row and column of the cell
+	 * @throws CylindricalMatrixInputParserException if the id is not a cell of the matrix
+	 */
+	private static int[] cell(GridGraph graph, String id) throws CylindricalMatrixInputParserException {
+		String[] ij = id.split(",");
+		try {
+			int row = Integer.parseInt(ij[0].trim()) - 1;
+			int col = Integer.parseInt(ij[1].trim()) - 1;
+			if (row >= 0 && row < graph.getRows() && col >= 0 && col < graph.getColumns())
+				return new int[] {row, col};
+		}
+		catch (RuntimeException e) {
+			// reported below
+		}
+		throw new CylindricalMatrixInputParserException("Query coordinates outside the matrix " + id);
+	}
+
+	private static InputStreamReader read(InputStream body) throws IOException {
+		return new InputStreamReader(body, ASCII);
+	}
+
+	private static void send(HttpExchange exchange, int status, String text) throws IOException {
+		byte[] bytes = text.getBytes(ASCII);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		try {
+			out.write(bytes);
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Graph of a loaded matrix and the answer of the problem of its input file
+	 */
+	private static class LoadedMatrix {
+		final GridGraph graph;
+		final String answer;
+
+		LoadedMatrix(GridGraph graph, String answer) {
+			this.graph = graph;
+			this.answer = answer;
+		}
+	}
+}
@@ -1,12 +1,26 @@
 package com.solium.main;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import com.solium.cylindricalMatrix.BatchQueryEngine;
 import com.solium.cylindricalMatrix.Graph;
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.Node;
+import com.solium.cylindricalMatrix.ShortestPath;
+import com.solium.cylindricalMatrix.Solution;
+import com.solium.cylindricalMatrix.StreamingColumnSweepSolver;
 import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
 import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException;
+import com.solium.cylindricalMatrix.server.SolverServer;
 
 /**
  * Class with main method for getting inputs for constructing a matrix.
@@ -15,19 +29,76 @@ import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException
 public class CylindricalMatrix {
 
 	public static void main(String[] args) {
-        if (args.length == 0 || args.length > 3) {
+        if (args.length == 0 || args.length > 3 || !hasArgumentCount(args)) {
             System.err.println();
             System.err.println("CylindricalMatrix requires one argument, the name of the input file.");
             System.err.println();
             System.err.println("Example: java CylindricalMatrix/input/input.txt");
+            System.err.println("Batch of queries: java CylindricalMatrix -batch input/batch.txt");
+            System.err.println("Binary matrix file: java CylindricalMatrix -convert input/input.txt input/input.bin");
+            System.err.println("Within a time budget: java CylindricalMatrix -deadline 50 input/input.txt");
+            System.err.println("Column major Standard file: java CylindricalMatrix -stream input/columns.txt");
+            System.err.println("Stream of input files: java CylindricalMatrix -pipeline [workers] < inputs.txt");
+            System.err.println("Directory of input files: java CylindricalMatrix -dir 'input/*.txt' [workers]");
+            System.err.println("Solver server: java CylindricalMatrix -server 8080 [maximum requests], see SolverClient");
             System.err.println();
             System.exit(1);
         }
         try {
+        	if ("-batch".equals(args[0])) {
+        		runBatch(new File(args[1]));
+        		return;
+        	}
+        	if ("-pipeline".equals(args[0])) {
+        		//solve the input files written one after the other to the standard input
+        		int workers = args.length == 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        		Writer output = new BufferedWriter(new OutputStreamWriter(System.out, "US-ASCII"));
+        		new SolverPipeline(workers, 64).run(new InputStreamReader(System.in, "US-ASCII"), output);
+        		return;
+        	}
+        	if ("-dir".equals(args[0])) {
+        		//solve the input files of a directory at the same time, the answers are printed in the order of the names
+        		int workers = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        		Writer output = new BufferedWriter(new OutputStreamWriter(System.out, "US-ASCII"));
+        		new DirectoryRunner(workers).run(DirectoryRunner.listInputFiles(args[1]), output);
+        		return;
+        	}
+        	if ("-server".equals(args[0])) {
+        		//answer over HTTP until the JVM is stopped
+        		SolverServer server = new SolverServer(Integer.parseInt(args[1]), args.length == 3 ? Integer.parseInt(args[2]) : 256);
+        		server.start();
+        		System.err.println("Listening on 127.0.0.1:" + server.getPort() + (server.isVirtualThreads() ? " with virtual threads" : ""));
+        		return;
+        	}
+        	if ("-deadline".equals(args[0])) {
+        		//solve within a number of milliseconds, the best path found is printed if the time runs out
+        		Graph graph = new CylindricalMatrixInputParser().buildGridGraph(new File(args[2]));
+        		Solution solution = graph.solveWithin(Long.parseLong(args[1]), TimeUnit.MILLISECONDS);
+        		if (solution.isFound()) {
+        			System.out.println(solution);
+        			System.out.println(solution.getWeight());
+        		}
+        		else if (solution.isOptimal())
+        			System.out.println("No destination can be reached");
+        		else
+        			System.out.println("No path found within the deadline");
+        		if (!solution.isOptimal())
+        			System.out.println("Not optimal, no path weighs less than " + solution.getLowerBound());
+        		return;
+        	}
+        	if ("-stream".equals(args[0])) {
+        		runStreaming(new File(args[1]));
+        		return;
+        	}
+        	if ("-convert".equals(args[0])) {
+        		//write the matrix of a text input file as a binary matrix file, which the program reads without parsing
+        		new CylindricalMatrixInputParser().convertToBinary(new FileReader(args[1]), new File(args[2]));
+        		return;
+        	}
         	File input = new File(args[0]);
         	
-        	//construct the graph from the input file matrix
-        	Graph graph = new CylindricalMatrixInputParser().buildGraph(new FileReader(input));
+        	//construct the graph from the input file matrix, mapped in memory and parsed by several threads
+        	Graph graph = new CylindricalMatrixInputParser().buildGridGraph(input);
         	
         	//Print the list of the shortest path
     		System.out.println(graph.lexicographicallySmallestForDisplay());
@@ -42,4 +113,56 @@ public class CylindricalMatrix {
         	System.out.print(e.getMessage());
         }
 	}
+	
+	/**
+	 * Checks the number of arguments given after a mode flag, an input file name is given alone
+	 * @param args arguments of the program, at least one
+	 * @return false if the first argument is a mode flag with too few or too many arguments
+	 */
+	static boolean hasArgumentCount(String[] args) {
+		String mode = args[0];
+		if ("-batch".equals(mode) || "-stream".equals(mode))
+			return args.length == 2;
+		if ("-deadline".equals(mode) || "-convert".equals(mode))
+			return args.length == 3;
+		if ("-pipeline".equals(mode))
+			return args.length <= 2;
+		if ("-dir".equals(mode) || "-server".equals(mode))
+			return args.length >= 2;
+		return args.length == 1;
+	}
+	
+	/**
+	 * Prints the shortest path and the minimum weight of a column major input file of the Standard version, solved
+	 * while its columns are read
+	 * @param input column major input file
+	 * @throws IOException
+	 * @throws CylindricalMatrixInputParserException
+	 */
+	private static void runStreaming(File input) throws IOException, CylindricalMatrixInputParserException {
+		StreamingColumnSweepSolver solver = new CylindricalMatrixInputParser().solveColumnMajor(input, null);
+		int[] pathRows = solver.getPathRows();
+		List<Node> path = new ArrayList<Node>(pathRows.length);
+		for (int col = 0; col < pathRows.length; col++)
+			path.add(new Node(pathRows[col]+1, col+1));
+		System.out.println(ShortestPath.format(path));
+		System.out.println(solver.getMinimumWeight());
+	}
+	
+	/**
+	 * Prints the shortest path and the minimum weight of each query of a batch input file, in the order of the queries
+	 * @param input batch input file
+	 * @throws IOException
+	 * @throws CylindricalMatrixInputParserException
+	 */
+	private static void runBatch(File input) throws IOException, CylindricalMatrixInputParserException {
+		CylindricalMatrixInputParser parser = new CylindricalMatrixInputParser();
+		GridGraph graph = parser.buildBatchGraph(new FileReader(input));
+		new BatchQueryEngine(graph).run(parser.getQueries(), new BatchQueryEngine.AnswerListener() {
+			public void answer(int query, ShortestPath path) {
+				System.out.println(path);
+				System.out.println(path.getWeight());
+			}
+		});
+	}
 }
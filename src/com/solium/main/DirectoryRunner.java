@@ -0,0 +1,191 @@
+package com.solium.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.SolverWorkspace;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException;
+
+/**
+ * Solves many input files at the same time on a pool of worker threads, and writes their answers to one output in the
+ * order of the input files. The answer of an input file is a line with the name of the file and the time taken to
+ * parse and solve it, and then the path and the minimum weight as the program prints them, or the error of a
+ * malformed input file. A last line gives the number of input files and the total time.
+ *
+ * Each worker thread keeps its own parser and solver workspace from one input file to the next. The rows of a
+ * large input file are parsed by the tasks of a work stealing pool shared by the parsers. It is not the pool of the
+ * workers, so that a worker waiting for its rows is never given another input file, whose time would be counted
+ * in the time of its own
+ */
+
+public class DirectoryRunner {
+
+	private final int workers;
+
+	/**
+	 * @param workers number of threads solving the input files
+	 */
+	public DirectoryRunner(int workers) {
+		if (workers < 1)
+			throw new IllegalArgumentException("The runner needs at least one worker");
+		this.workers = workers;
+	}
+
+	/**
+	 * @param directoryOrGlob a directory, for all its files, or a glob in the name of the files of a directory,
+	 * for instance input/*.txt
+	 * @return the input files, sorted by name
+	 * @throws IOException if the directory cannot be read
+	 */
+	public static List<File> listInputFiles(String directoryOrGlob) throws IOException {
+		File directory = new File(directoryOrGlob);
+		String glob = "*";
+		if (!directory.isDirectory()) {
+			glob = directory.getName();
+			directory = directory.getAbsoluteFile().getParentFile();
+		}
+		List<File> inputs = new ArrayList<File>();
+		DirectoryStream<Path> files = Files.newDirectoryStream(directory.toPath(), glob);
+		try {
+			for (Path file : files) {
+				if (Files.isRegularFile(file))
+					inputs.add(new File(directory, file.getFileName().toString()));
+			}
+		}
+		finally {
+			files.close();
+		}
+		Collections.sort(inputs);
+		return inputs;
+	}
+
+	/**
+	 * Solves input files and writes their answers
+	 * @param inputs input files, answered in this order
+	 * @param output where the answers are written, flushed after the last answer
+	 * @return the number of input files answered
+	 * @throws IOException if the output cannot be written
+	 */
+	public int run(List<File> inputs, Writer output) throws IOException {
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		final ForkJoinPool rowPool = new ForkJoinPool(workers);
+		final ThreadLocal<Worker> worker = new ThreadLocal<Worker>() {
+			protected Worker initialValue() {
+				return new Worker(rowPool);
+			}
+		};
+		try {
+			List<Future<String>> answers = new ArrayList<Future<String>>(inputs.size());
+			for (File input : inputs)
+				answers.add(pool.submit(new Solve(input, worker)));
+			for (int i = 0; i < answers.size(); i++)
+				output.write(answer(inputs.get(i), answers.get(i)));
+			output.write(inputs.size() + " input files in " + (System.nanoTime() - start) / 1000000 + " ms\n");
+		}
+		finally {
+			pool.shutdownNow();
+			rowPool.shutdownNow();
+		}
+		output.flush();
+		return inputs.size();
+	}
+
+	/**
+	 * @param input
+	 * @param answer
+	 * @return the answer of the input file once it is solved
+	 */
+	private static String answer(File input, Future<String> answer) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return answer.get();
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+				catch (ExecutionException e) {
+					return input.getPath() + "\nCannot solve the input file " + e.getCause() + "\n";
+				}
+			}
+		}
+		finally {
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Parser and solver workspace of a worker thread, reused for every input file it solves
+	 */
+	private static class Worker {
+		final CylindricalMatrixInputParser parser = new CylindricalMatrixInputParser();
+		SolverWorkspace workspace;
+
+		/**
+		 * @param rowPool pool parsing the rows of the input files
+		 */
+		Worker(ForkJoinPool rowPool) {
+			parser.setPool(rowPool);
+		}
+	}
+
+	/**
+	 * Parses and solves an input file, and formats its answer
+	 */
+	private static class Solve implements Callable<String> {
+		private final File input;
+		private final ThreadLocal<Worker> worker;
+
+		Solve(File input, ThreadLocal<Worker> worker) {
+			this.input = input;
+			this.worker = worker;
+		}
+
+		public String call() {
+			Worker current = worker.get();
+			long start = System.nanoTime();
+			String text;
+			try {
+				GridGraph graph = current.parser.buildGridGraph(input);
+				graph.setWorkspace(current.workspace);
+				// kept again once the search has reset it
+				current.workspace = null;
+				String path = graph.lexicographicallySmallestForDisplay();
+				current.workspace = graph.getWorkspace();
+				text = path + "\n" + graph.getMinimumWeight() + "\n";
+			}
+			catch (IOException e) {
+				text = e.getMessage() + "\n";
+			}
+			catch (CylindricalMatrixInputParserException e) {
+				text = e.getMessage() + "\n";
+			}
+			catch (RuntimeException e) {
+				text = "Invalid input file " + e.getMessage() + "\n";
+			}
+			finally {
+				// the parser does not keep the graph of the input file once it is solved
+				current.parser.reset();
+			}
+			return input.getPath() + " " + (System.nanoTime() - start) / 1000 + " us\n" + text;
+		}
+	}
+}
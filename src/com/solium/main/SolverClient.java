@@ -0,0 +1,97 @@
+package com.solium.main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Thin client of the solver server started by java CylindricalMatrix -server port. It only sends the request
+ * and prints the answer, so that it starts much faster than the program solving the input file itself
+ */
+public class SolverClient {
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println();
+			System.err.println("SolverClient requires the port of the server and an input file or a command.");
+			System.err.println();
+			System.err.println("Solve an input file: java SolverClient 8080 input/input.txt");
+			System.err.println("Load a matrix: java SolverClient 8080 -load name input/b1_grid.txt");
+			System.err.println("Answer a loaded matrix: java SolverClient 8080 -get name [i,j i,j]");
+			System.err.println("Unload a matrix: java SolverClient 8080 -unload name");
+			System.err.println();
+			System.exit(1);
+		}
+		try {
+			String server = "http://127.0.0.1:" + Integer.parseInt(args[0]);
+			int status;
+			if ("-load".equals(args[1]) && args.length == 4)
+				status = send("PUT", new URL(server + "/matrices/" + args[2]), args[3]);
+			else if ("-get".equals(args[1]) && args.length == 3)
+				status = send("GET", new URL(server + "/matrices/" + args[2]), null);
+			else if ("-get".equals(args[1]) && args.length == 5)
+				status = send("GET", new URL(server + "/matrices/" + args[2] + "?from=" + args[3] + "&to=" + args[4]), null);
+			else if ("-unload".equals(args[1]) && args.length == 3)
+				status = send("DELETE", new URL(server + "/matrices/" + args[2]), null);
+			else
+				status = send("POST", new URL(server + "/solve"), args[1]);
+			if (status != HttpURLConnection.HTTP_OK)
+				System.exit(2);
+		}
+		catch (IOException e) {
+			System.out.print(e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Sends a request and prints the answer
+	 * @param method
+	 * @param url
+	 * @param input input file sent as the body, null for none
+	 * @return the status of the answer
+	 * @throws IOException
+	 */
+	private static int send(String method, URL url, String input) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try {
+			connection.setRequestMethod(method);
+			if (input != null) {
+				connection.setDoOutput(true);
+				OutputStream out = connection.getOutputStream();
+				try {
+					copy(new FileInputStream(input), out);
+				}
+				finally {
+					out.close();
+				}
+			}
+			int status = connection.getResponseCode();
+			InputStream in = status == HttpURLConnection.HTTP_OK ? connection.getInputStream() : connection.getErrorStream();
+			ByteArrayOutputStream answer = new ByteArrayOutputStream();
+			if (in != null)
+				copy(in, answer);
+			System.out.print(answer.toString("US-ASCII"));
+			return status;
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private static void copy(InputStream in, OutputStream out) throws IOException {
+		try {
+			byte[] buffer = new byte[1 << 16];
+			int count;
+			while ((count = in.read(buffer)) > 0)
+				out.write(buffer, 0, count);
+		}
+		finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package com.solium.main;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException;
+import com.solium.cylindricalMatrix.parser.InputFileStream;
+
+/**
+ * Solves a stream of input files in three stages: the calling thread parses the input files one after the other,
+ * a pool of workers solves them, and a writer thread writes the answers (the path and then the minimum weight, as
+ * the program prints them) in the order of the input files.
+ *
+ * The stages are joined by queues: the parsed graphs wait for a worker in the queue of the pool, and the answers
+ * wait for the writer in a bounded queue kept in the order of the input files. An input file is queued for the
+ * writer before it is given to the pool, so when the writer falls behind the parsing stops until it catches up,
+ * and there are never more than capacity + 2 input files in flight in the whole pipeline: capacity answers in the
+ * queue, the one the writer has taken and waits for, and the graph just parsed, waiting for room in the queue.
+ *
+ * A malformed input file is answered by its error, and ends the stream since the next input file cannot be found
+ */
+
+public class SolverPipeline {
+
+	private final int workers;
+	private final int capacity;
+
+	/**
+	 * @param workers number of threads solving the input files
+	 * @param capacity number of answers waiting for the writer
+	 */
+	public SolverPipeline(int workers, int capacity) {
+		if (workers < 1 || capacity < 1)
+			throw new IllegalArgumentException("The pipeline needs at least one worker and room for one input file");
+		this.workers = workers;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Solves the input files of a stream and writes their answers
+	 * @param input stream of input files
+	 * @param output where the answers are written, flushed after the last answer
+	 * @return the number of input files answered
+	 * @throws IOException if the input cannot be read or the output cannot be written
+	 */
+	public int run(Reader input, Writer output) throws IOException {
+		// the writer takes the answers in order, an answer it waits for is being solved or already solved
+		final BlockingQueue<Future<String>> answers = new ArrayBlockingQueue<Future<String>>(capacity);
+		// the queue of the pool is bounded by the queue of the answers
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		AnswerWriter writer = new AnswerWriter(answers, output);
+		Thread writerThread = new Thread(writer, "answer writer");
+		writerThread.start();
+		int count = 0;
+		try {
+			InputFileStream stream = new InputFileStream(input);
+			while (!writer.failed()) {
+				FutureTask<String> answer;
+				try {
+					GridGraph graph = stream.next();
+					if (graph == null)
+						break;
+					answer = new FutureTask<String>(new Solve(graph));
+					// queued for the writer first, so that the writer does not wait for an answer that is not queued
+					put(answers, answer);
+					pool.execute(answer);
+				}
+				catch (CylindricalMatrixInputParserException e) {
+					put(answers, done(e.getMessage() + "\n"));
+					count++;
+					break;
+				}
+				catch (RuntimeException e) {
+					put(answers, done("Invalid input file " + e.getMessage() + "\n"));
+					count++;
+					break;
+				}
+				count++;
+			}
+		}
+		finally {
+			put(answers, done(null));
+			pool.shutdown();
+			join(writerThread);
+		}
+		if (writer.error != null)
+			throw writer.error;
+		return count;
+	}
+
+	/**
+	 * @param answers
+	 * @param answer
+	 */
+	private static void put(BlockingQueue<Future<String>> answers, Future<String> answer) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				answers.put(answer);
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	private static void join(Thread thread) {
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * @param text
+	 * @return an answer already known, null to end the stream
+	 */
+	private static Future<String> done(String text) {
+		FutureTask<String> answer = new FutureTask<String>(new Runnable() {
+			public void run() {
+			}
+		}, text);
+		answer.run();
+		return answer;
+	}
+
+	/**
+	 * Solves a graph and formats its answer
+	 */
+	private static class Solve implements Callable<String> {
+		private final GridGraph graph;
+
+		Solve(GridGraph graph) {
+			this.graph = graph;
+		}
+
+		public String call() {
+			String path = graph.lexicographicallySmallestForDisplay();
+			return path + "\n" + graph.getMinimumWeight() + "\n";
+		}
+	}
+
+	/**
+	 * Writes the answers in the order they are queued, until the answer ending the stream
+	 */
+	private static class AnswerWriter implements Runnable {
+		private final BlockingQueue<Future<String>> answers;
+		private final Writer output;
+		private volatile IOException error;
+
+		AnswerWriter(BlockingQueue<Future<String>> answers, Writer output) {
+			this.answers = answers;
+			this.output = output;
+		}
+
+		boolean failed() {
+			return error != null;
+		}
+
+		public void run() {
+			while (true) {
+				String text;
+				try {
+					text = answers.take().get();
+				}
+				catch (InterruptedException e) {
+					continue;
+				}
+				catch (ExecutionException e) {
+					text = "Cannot solve the input file " + e.getCause() + "\n";
+				}
+				if (text == null)
+					break;
+				if (error != null)
+					continue;
+				try {
+					output.write(text);
+				}
+				catch (IOException e) {
+					// the answers are still taken, so that the parsing does not wait for room in the queue
+					error = e;
+				}
+			}
+			try {
+				output.flush();
+			}
+			catch (IOException e) {
+				if (error == null)
+					error = e;
+			}
+		}
+	}
+}
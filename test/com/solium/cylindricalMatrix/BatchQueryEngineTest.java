@@ -0,0 +1,83 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.BatchQueryEngine;
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.NeighborStencil;
+import com.solium.cylindricalMatrix.ShortestPath;
+
+/**
+ * Tests a batch of queries gives the answers of the single queries, in the order of the queries
+ */
+public class BatchQueryEngineTest {
+	int[][] weightMatrix = {
+			{3, 4, 1, 2, 8, 6},
+			{6, 1, 8, 2, 7, 4},
+			{5, 9, 3, 9, 9, 5},
+			{8, 4, 1, 3, 2, 6},
+			{3, 7, 2, 8, 6, 4}};
+
+	@Test
+	public void batchGivesTheAnswersOfTheSingleQueries() {
+		for (NeighborStencil stencil : new NeighborStencil[] {NeighborStencil.BONUS1, NeighborStencil.BONUS2}) {
+			GridGraph graph = new GridGraph(weightMatrix, stencil);
+			List<int[]> queries = randomQueries(new Random(7), 60);
+			List<ShortestPath> answers = new BatchQueryEngine(graph).run(queries);
+			assertEquals(queries.size(), answers.size());
+			for (int i = 0; i < queries.size(); i++) {
+				int[] query = queries.get(i);
+				ShortestPath expected = graph.findShortestPath(query[0], query[1], query[2], query[3]);
+				assertEquals(expected.toString(), answers.get(i).toString());
+				assertEquals(expected.getWeight(), answers.get(i).getWeight());
+			}
+		}
+	}
+
+	@Test
+	public void oneTreeIsGrownPerSource() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS2);
+		List<int[]> queries = new ArrayList<int[]>();
+		queries.add(new int[] {0, 0, 3, 5});
+		queries.add(new int[] {2, 2, 0, 0});
+		queries.add(new int[] {0, 0, 4, 1});
+		queries.add(new int[] {0, 0, 3, 5});
+		BatchQueryEngine engine = new BatchQueryEngine(graph);
+		final List<Integer> order = new ArrayList<Integer>();
+		engine.run(queries, new BatchQueryEngine.AnswerListener() {
+			public void answer(int query, ShortestPath path) {
+				order.add(Integer.valueOf(query));
+			}
+		});
+		assertEquals(2, engine.getTreesCount());
+		assertEquals("[0, 1, 2, 3]", order.toString());
+	}
+
+	@Test
+	public void sourceAsDestinationGivesTheSourceCell() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		List<int[]> queries = new ArrayList<int[]>();
+		queries.add(new int[] {1, 1, 1, 1});
+		queries.add(new int[] {1, 1, 0, 2});
+		List<ShortestPath> answers = new BatchQueryEngine(graph).run(queries);
+		assertEquals("(2,2)", answers.get(0).toString());
+		assertEquals(1, answers.get(0).getWeight());
+		assertEquals("(2,2) (1,3)", answers.get(1).toString());
+		assertEquals(2, answers.get(1).getWeight());
+	}
+
+	private List<int[]> randomQueries(Random random, int count) {
+		List<int[]> queries = new ArrayList<int[]>();
+		for (int i = 0; i < count; i++) {
+			// few sources so that the groups have many destinations
+			queries.add(new int[] {random.nextInt(2), random.nextInt(3), random.nextInt(5), random.nextInt(6)});
+		}
+		return queries;
+	}
+}
@@ -0,0 +1,121 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.BidirectionalDijkstra;
+import com.solium.cylindricalMatrix.Edge;
+import com.solium.cylindricalMatrix.Graph;
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.NeighborStencil;
+import com.solium.cylindricalMatrix.Node;
+
+/**
+ * Tests the bidirectional search finds the minimum weight of Dijkstra while settling fewer nodes
+ */
+public class BidirectionalDijkstraTest {
+	int[][] weightMatrix = {
+			{3, 4, 1, 2, 8, 6},
+			{6, 1, 8, 2, 7, 4},
+			{5, 9, 3, 9, 9, 5},
+			{8, 4, 1, 3, 2, 6},
+			{3, 7, 2, 8, 6, 4}};
+
+	@Test
+	public void sameWeightAsDijkstra() {
+		for (NeighborStencil stencil : NeighborStencil.values()) {
+			GridGraph dijkstra = new GridGraph(weightMatrix, stencil);
+			setSourceAndDestination(dijkstra, 0, 0, 3, 5);
+			dijkstra.findShortestPathFromSourcesAndDestinations();
+			GridGraph bidirectional = new GridGraph(weightMatrix, stencil);
+			setSourceAndDestination(bidirectional, 0, 0, 3, 5);
+			bidirectional.setBidirectional(true);
+			bidirectional.findShortestPathFromSourcesAndDestinations();
+			assertEquals(dijkstra.getMinimumWeight(), bidirectional.getMinimumWeight());
+		}
+	}
+
+	@Test
+	public void samePathAsDijkstra() {
+		// many paths of the same weight, so that the ties decide the path
+		int[][] ties = {
+				{1, 2, 1, 1, 2, 1},
+				{2, 1, 1, 2, 1, 1},
+				{1, 1, 2, 1, 1, 2},
+				{1, 2, 1, 1, 0, 1},
+				{2, 1, 1, 2, 1, 1}};
+		for (NeighborStencil stencil : new NeighborStencil[] {NeighborStencil.BONUS1, NeighborStencil.BONUS2}) {
+			for (int source = 0; source < 30; source++) {
+				for (int destination = 0; destination < 30; destination++) {
+					GridGraph dijkstra = new GridGraph(ties, stencil);
+					GridGraph bidirectional = new GridGraph(ties, stencil);
+					bidirectional.setBidirectional(true);
+					setSourceAndDestination(dijkstra, source / 6, source % 6, destination / 6, destination % 6);
+					setSourceAndDestination(bidirectional, source / 6, source % 6, destination / 6, destination % 6);
+					assertEquals(dijkstra.lexicographicallySmallestForDisplay(), bidirectional.lexicographicallySmallestForDisplay());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void pathGoesFromSourceToDestination() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		BidirectionalDijkstra search = new BidirectionalDijkstra(graph);
+		int[] path = search.search(0, 3 * 6 + 5);
+		assertEquals(0, path[0]);
+		assertEquals(3 * 6 + 5, path[path.length-1]);
+		int weight = 0;
+		for (int i = 1; i < path.length; i++)
+			weight += weightMatrix[path[i] / 6][path[i] % 6];
+		assertEquals(search.getDistance(), weight);
+	}
+
+	@Test
+	public void localQuerySettlesFewNodes() {
+		int[][] uniform = new int[200][200];
+		for (int[] row : uniform)
+			Arrays.fill(row, 1);
+		GridGraph graph = new GridGraph(uniform, NeighborStencil.BONUS2);
+		BidirectionalDijkstra search = new BidirectionalDijkstra(graph);
+		search.search(100 * 200 + 100, 104 * 200 + 104);
+		assertEquals(4, search.getDistance());
+		assertTrue(search.getSettledNodesCount() < 200);
+	}
+
+	@Test
+	public void noPathWhenDestinationCannotBeReached() {
+		Node node1 = new Node("1,1");
+		Node node2 = new Node("1,2");
+		Node node3 = new Node("2,1");
+		List<Edge> edges = new ArrayList<Edge>();
+		edges.add(new Edge(node1, node2, 1));
+		edges.add(new Edge(node3, node2, 1));
+		Graph graph = new Graph(edges);
+		graph.setSources(new ArrayList<Node>());
+		graph.setDestinations(new ArrayList<Node>());
+		graph.indexNodes();
+		BidirectionalDijkstra search = new BidirectionalDijkstra(graph);
+		assertNull(search.search(graph.indexOf(node1), graph.indexOf(node3)));
+		assertEquals(Long.MAX_VALUE, search.getDistance());
+	}
+
+	private void setSourceAndDestination(GridGraph graph, int sourceRow, int sourceCol, int destRow, int destCol) {
+		List<Node> sources = new ArrayList<Node>();
+		sources.add(graph.getNode(sourceRow, sourceCol));
+		List<Node> destinations = new ArrayList<Node>();
+		destinations.add(graph.getNode(destRow, destCol));
+		List<Integer> sourceWeights = new ArrayList<Integer>();
+		sourceWeights.add(graph.getWeight(sourceRow, sourceCol));
+		graph.setSources(sources);
+		graph.setDestinations(destinations);
+		graph.setSourceWeights(sourceWeights);
+	}
+}
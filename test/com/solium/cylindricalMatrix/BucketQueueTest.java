@@ -0,0 +1,88 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.BucketQueue;
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
+
+/**
+ * Tests the bucket queue gives the nodes in the order of the binary heap, and the same path in the graph
+ */
+public class BucketQueueTest {
+
+	@Test
+	public void pollReturnsNodesByDistanceAcrossTheBuckets() {
+		BucketQueue queue = new BucketQueue(5, 3, false);
+		queue.push(0, 2);
+		queue.push(1, 0);
+		queue.push(2, 3);
+		assertEquals(1, queue.poll());
+		queue.push(3, 1);
+		assertEquals(3, queue.poll());
+		queue.push(4, 4);
+		assertEquals(0, queue.poll());
+		assertEquals(2, queue.poll());
+		assertEquals(4, queue.poll());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void pushOnlyDecreasesTheDistance() {
+		BucketQueue queue = new BucketQueue(3, 9, false);
+		queue.push(0, 4);
+		queue.push(1, 6);
+		queue.push(1, 2);
+		queue.push(0, 9);
+		assertEquals(2, queue.size());
+		assertEquals(1, queue.poll());
+		assertFalse(queue.contains(1));
+		assertEquals(0, queue.poll());
+	}
+
+	@Test
+	public void orderedTiesAreBrokenOnIndex() {
+		BucketQueue queue = new BucketQueue(4, 2, true);
+		queue.push(3, 1);
+		queue.push(1, 1);
+		assertEquals(1, queue.poll());
+		// a node reached with an edge of weight 0 comes out before the nodes of the same distance with a greater index
+		queue.push(2, 1);
+		queue.push(0, 1);
+		assertEquals(0, queue.poll());
+		assertEquals(2, queue.poll());
+		assertEquals(3, queue.poll());
+	}
+
+	@Test
+	public void clearEmptiesTheQueue() {
+		BucketQueue queue = new BucketQueue(3, 2, true);
+		queue.push(0, 1);
+		queue.push(1, 1);
+		queue.push(2, 2);
+		queue.poll();
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		assertFalse(queue.contains(1));
+		assertFalse(queue.contains(2));
+	}
+
+	@Test
+	public void parserPicksTheBucketQueueWithoutChangingThePath() throws Exception {
+		String input = "B2\n4 5 1,1 4,4\n0 1 0 3 0\n2 0 0 1 4\n0 3 0 0 2\n1 0 2 0 0";
+		GridGraph bucket = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(input));
+		assertEquals(4, bucket.getMaximumEdgeWeight());
+		GridGraph heap = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(input));
+		heap.setEdgeWeightRange(-1, -1);
+		bucket.findShortestPathFromSourcesAndDestinations();
+		heap.findShortestPathFromSourcesAndDestinations();
+		assertEquals(heap.getMinimumWeight(), bucket.getMinimumWeight());
+		assertEquals(heap.lexicographicallySmallestForDisplay(), bucket.lexicographicallySmallestForDisplay());
+	}
+}
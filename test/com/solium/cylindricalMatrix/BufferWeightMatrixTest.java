@@ -0,0 +1,51 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.BufferWeightMatrix;
+
+/**
+ * Tests the weights are read in place from a little endian buffer for each width
+ */
+public class BufferWeightMatrixTest {
+
+	@Test
+	public void weightsAreReadForEachWidth() {
+		int[] weights = {0, 255, 7, 128, 1, 9};
+		for (int width : new int[] {1, 2, 4}) {
+			ByteBuffer buffer = ByteBuffer.allocate(weights.length * width).order(ByteOrder.LITTLE_ENDIAN);
+			for (int weight : weights) {
+				if (width == 1)
+					buffer.put((byte) weight);
+				else if (width == 2)
+					buffer.putShort((short) weight);
+				else
+					buffer.putInt(weight);
+			}
+			BufferWeightMatrix matrix = new BufferWeightMatrix(buffer, 2, 3, width);
+			for (int index = 0; index < weights.length; index++)
+				assertEquals(weights[index], matrix.get(index));
+			assertEquals(128, matrix.get(1, 0));
+		}
+	}
+
+	@Test
+	public void wideWeightsKeepTheirSign() {
+		ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(-5).putInt(70000);
+		BufferWeightMatrix matrix = new BufferWeightMatrix(buffer, 1, 2, 4);
+		assertEquals(-5, matrix.get(0, 0));
+		assertEquals(70000, matrix.get(0, 1));
+		assertEquals(65535, new BufferWeightMatrix(ByteBuffer.wrap(new byte[] {-1, -1}), 1, 1, 2).get(0));
+	}
+
+	@Test (expected = IllegalArgumentException.class)
+	public void bufferMustHoldTheMatrix() {
+		new BufferWeightMatrix(ByteBuffer.allocate(5), 2, 3, 1);
+	}
+}
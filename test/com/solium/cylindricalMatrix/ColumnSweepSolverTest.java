@@ -0,0 +1,135 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.ColumnSweepSolver;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
+
+/**
+ * Tests the column sweep finds the minimum weight and the path of the Standard version
+ */
+public class ColumnSweepSolverTest {
+
+	@Test
+	public void standardExample() {
+		int[][] weightMatrix = {
+				{3, 4, 1, 2, 8, 6},
+				{6, 1, 8, 2, 7, 4},
+				{5, 9, 3, 9, 9, 5},
+				{8, 4, 1, 3, 2, 6},
+				{3, 7, 2, 8, 6, 4}};
+		ColumnSweepSolver solver = new ColumnSweepSolver(weightMatrix);
+		assertTrue(solver.solve());
+		assertEquals(16, solver.getMinimumWeight());
+		assertArrayEquals(new int[] {0, 1, 2, 3, 3, 4}, solver.getPathRows());
+	}
+
+	@Test
+	public void pathWrapsFromLastRowToFirstRow() {
+		int[][] weightMatrix = {
+				{9, 0, 9},
+				{9, 9, 9},
+				{0, 9, 0}};
+		ColumnSweepSolver solver = new ColumnSweepSolver(weightMatrix);
+		assertTrue(solver.solve());
+		assertEquals(0, solver.getMinimumWeight());
+		assertArrayEquals(new int[] {2, 0, 2}, solver.getPathRows());
+	}
+
+	@Test
+	public void firstSourceRowWinsATie() {
+		int[][] weightMatrix = {
+				{1, 1},
+				{1, 1},
+				{1, 1}};
+		ColumnSweepSolver solver = new ColumnSweepSolver(weightMatrix);
+		assertTrue(solver.solve());
+		assertEquals(2, solver.getMinimumWeight());
+		assertArrayEquals(new int[] {0, 0}, solver.getPathRows());
+	}
+
+	@Test
+	public void moreRowsThanColumns() {
+		int[][] weightMatrix = {{1, 1}, {1, 1}, {1, 1}, {1, 0}, {0, 1}, {1, 1}};
+		ColumnSweepSolver solver = new ColumnSweepSolver(weightMatrix);
+		assertTrue(solver.solve());
+		assertEquals(0, solver.getMinimumWeight());
+		assertArrayEquals(new int[] {4, 3}, solver.getPathRows());
+	}
+
+	@Test
+	public void zeroWeightTieGivesThePathOfGraph() throws Exception {
+		String config = "S\n7 8\n"
+				+ "0 0 0 1 1 0 1 1\n"
+				+ "1 0 0 1 0 1 0 1\n"
+				+ "0 1 0 1 1 0 1 0\n"
+				+ "1 0 1 1 0 0 0 0\n"
+				+ "0 1 0 1 0 0 1 1\n"
+				+ "1 0 0 0 0 0 1 0\n"
+				+ "1 1 0 1 0 1 1 1";
+		Graph graph = new CylindricalMatrixInputParser().buildGraph(new StringReader(config));
+		String expected = graph.lexicographicallySmallestForDisplay();
+		assertEquals("(1,1) (1,2) (7,3) (6,4) (7,5) (1,6) (2,7) (3,8)", expected);
+
+		GridGraph sweep = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+		assertTrue(sweep.isColumnSweep());
+		assertEquals(expected, sweep.lexicographicallySmallestForDisplay());
+		assertEquals(graph.getMinimumWeight(), sweep.getMinimumWeight());
+		assertEquals(0, sweep.getMinimumWeight());
+	}
+
+	@Test
+	public void tieGivesThePathOfGraph() throws Exception {
+		String config = "S\n4 3\n"
+				+ "1 0 1\n"
+				+ "1 1 1\n"
+				+ "0 0 1\n"
+				+ "1 0 1";
+		Graph graph = new CylindricalMatrixInputParser().buildGraph(new StringReader(config));
+		String expected = graph.lexicographicallySmallestForDisplay();
+		// the first source of minimum weight, then the first destination reached from it with that weight
+		assertEquals("(3,1) (4,2) (1,3)", expected);
+
+		GridGraph sweep = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+		assertTrue(sweep.isColumnSweep());
+		assertEquals(expected, sweep.lexicographicallySmallestForDisplay());
+		assertEquals(1, sweep.getMinimumWeight());
+
+		StreamingColumnSweepSolver streaming = new StreamingColumnSweepSolver(4, 3, null);
+		streaming.addColumn(new int[] {1, 1, 0, 1});
+		streaming.addColumn(new int[] {0, 1, 0, 0});
+		streaming.addColumn(new int[] {1, 1, 1, 1});
+		assertTrue(streaming.finish());
+		assertArrayEquals(new int[] {2, 3, 0}, streaming.getPathRows());
+	}
+
+	@Test
+	public void expiredSweepImprovesTheFallbackPath() {
+		int[][] weightMatrix = {
+				{3, 4, 1, 2, 8, 6},
+				{6, 1, 8, 2, 7, 4},
+				{5, 9, 3, 9, 9, 5},
+				{8, 4, 1, 3, 2, 6},
+				{3, 7, 2, 8, 6, 4}};
+		ColumnSweepSolver solver = new ColumnSweepSolver(weightMatrix);
+		solver.setDeadline(System.nanoTime());
+		solver.setFallbackRows(new int[] {1, 0, 0, 0, 0, 0});
+		assertFalse(solver.solve());
+		// the fallback path weighs 27, the first column has been swept and its lightest neighbor of the first row wins
+		assertEquals(24, solver.getMinimumWeight());
+		assertArrayEquals(new int[] {0, 0, 0, 0, 0, 0}, solver.getPathRows());
+		assertEquals(3, solver.getLowerBound());
+	}
+
+	@Test
+	public void emptyMatrixHasNoPath() {
+		assertFalse(new ColumnSweepSolver(new int[0][0]).solve());
+	}
+}
@@ -0,0 +1,49 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.FlatWeightMatrix;
+
+/**
+ * Tests the weights are kept as narrow as they allow, and keep their values when the matrix is widened
+ */
+public class FlatWeightMatrixTest {
+
+	@Test
+	public void smallWeightsAreKeptInBytes() {
+		FlatWeightMatrix matrix = new FlatWeightMatrix(2, 3);
+		matrix.setRow(0, new int[] {0, 255, 7});
+		matrix.setRow(1, new int[] {128, 1, 9});
+		assertEquals(1, matrix.getWidth());
+		assertEquals(255, matrix.get(0, 1));
+		assertEquals(128, matrix.get(3));
+		assertEquals(9, matrix.get(1, 2));
+	}
+
+	@Test
+	public void matrixIsWidenedByLargerWeights() {
+		FlatWeightMatrix matrix = new FlatWeightMatrix(3, 2);
+		matrix.setRow(0, new int[] {200, 3});
+		matrix.setRow(1, new int[] {65535, 256});
+		assertEquals(2, matrix.getWidth());
+		assertEquals(200, matrix.get(0, 0));
+		assertEquals(65535, matrix.get(1, 0));
+		matrix.setRow(2, new int[] {-5, 70000});
+		assertEquals(4, matrix.getWidth());
+		assertEquals(200, matrix.get(0, 0));
+		assertEquals(256, matrix.get(1, 1));
+		assertEquals(-5, matrix.get(2, 0));
+		assertEquals(70000, matrix.get(5));
+		// a narrow row is kept in the wide array
+		matrix.setRow(0, new int[] {1, 2});
+		assertEquals(4, matrix.getWidth());
+		assertEquals(2, matrix.get(0, 1));
+	}
+
+	@Test (expected = IllegalArgumentException.class)
+	public void matrixMustFitInAnArray() {
+		new FlatWeightMatrix(70000, 70000);
+	}
+}
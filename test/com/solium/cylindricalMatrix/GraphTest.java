@@ -33,7 +33,7 @@ public class GraphTest {
 	@Test
 	public void shortestDistanceShouldReturnNullIfEdgesEmpty() {
 		Graph graph = new Graph(new ArrayList<Edge>());
-		assertEquals(Integer.MAX_VALUE, graph.getMinimumWeight());
+		assertEquals(Long.MAX_VALUE, graph.getMinimumWeight());
 	}
 	
 	@Test
@@ -66,6 +66,73 @@ public class GraphTest {
 		edges.add(edge4);
 		Graph graph = new Graph(edges);
 		graph.findShortestPathFromSourcesAndDestinations();
-		assertEquals(Integer.MAX_VALUE, graph.getMinimumWeight());		
+		assertEquals(Long.MAX_VALUE, graph.getMinimumWeight());		
+	}
+	
+	@Test
+	public void neighborsAreFoundFromTheAdjacencyIndex() {
+		List<Edge> edges = new ArrayList<Edge>();
+		edges.add(edge1);
+		edges.add(edge2);
+		edges.add(edge3);
+		edges.add(edge4);
+		Graph graph = new Graph(edges);
+		graph.setSources(new ArrayList<Node>());
+		graph.setDestinations(new ArrayList<Node>());
+		graph.indexNodes();
+		assertEquals(2, graph.getNeighbors(node1).size());
+		assertEquals(0, graph.getNeighbors(node2).size());
+		assertEquals(2, graph.getNeighbors(node4).size());
+	}
+	
+	@Test
+	public void cheaperPathIsPreferredOverDirectEdge() {
+		List<Edge> edges = new ArrayList<Edge>();
+		edges.add(new Edge(node1, node2, 9));
+		edges.add(new Edge(node1, node3, 1));
+		edges.add(new Edge(node3, node2, 1));
+		Graph graph = new Graph(edges);
+		List<Node> sources = new ArrayList<Node>();
+		sources.add(node1);
+		List<Node> destinations = new ArrayList<Node>();
+		destinations.add(node2);
+		List<Integer> sourceWeights = new ArrayList<Integer>();
+		sourceWeights.add(0);
+		graph.setSources(sources);
+		graph.setDestinations(destinations);
+		graph.setSourceWeights(sourceWeights);
+		assertEquals("(1,1) (1,2) (2,2)", graph.lexicographicallySmallestForDisplay());
+		assertEquals(2, graph.getMinimumWeight());
+	}
+	
+	@Test
+	public void multiSourceFindsTheSamePathAsEveryPair() {
+		assertEquals("(2,1) (1,2)", shortestPathForStandardSetting(false));
+		assertEquals("(2,1) (1,2)", shortestPathForStandardSetting(true));
+	}
+	
+	private String shortestPathForStandardSetting(boolean multiSource) {
+		List<Edge> edges = new ArrayList<Edge>();
+		edges.add(new Edge(node1, node3, 2));
+		edges.add(new Edge(node1, node2, 3));
+		edges.add(new Edge(node4, node2, 3));
+		edges.add(new Edge(node4, node3, 2));
+		Graph graph = new Graph(edges);
+		List<Node> sources = new ArrayList<Node>();
+		sources.add(node1);
+		sources.add(node4);
+		List<Node> destinations = new ArrayList<Node>();
+		destinations.add(node2);
+		destinations.add(node3);
+		List<Integer> sourceWeights = new ArrayList<Integer>();
+		sourceWeights.add(1);
+		sourceWeights.add(0);
+		graph.setSources(sources);
+		graph.setDestinations(destinations);
+		graph.setSourceWeights(sourceWeights);
+		graph.setMultiSource(multiSource);
+		String path = graph.lexicographicallySmallestForDisplay();
+		assertEquals(2, graph.getMinimumWeight());
+		return path;
 	}
 }
@@ -0,0 +1,259 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.NeighborStencil;
+import com.solium.cylindricalMatrix.Node;
+
+/**
+ * Tests GridGraph finds the same shortest paths as a graph built from edges, without storing any edge
+ */
+public class GridGraphTest {
+	int[][] weightMatrix = {
+			{3, 4, 1, 2, 8, 6},
+			{6, 1, 8, 2, 7, 4},
+			{5, 9, 3, 9, 9, 5},
+			{8, 4, 1, 3, 2, 6},
+			{3, 7, 2, 8, 6, 4}};
+
+	@Test
+	public void standardShortestPath() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.STANDARD);
+		List<Node> sources = new ArrayList<Node>();
+		List<Node> destinations = new ArrayList<Node>();
+		List<Integer> sourceWeights = new ArrayList<Integer>();
+		for (int row = 0; row < graph.getRows(); row++) {
+			sources.add(graph.getNode(row, 0));
+			destinations.add(graph.getNode(row, graph.getColumns()-1));
+			sourceWeights.add(graph.getWeight(row, 0));
+		}
+		graph.setSources(sources);
+		graph.setDestinations(destinations);
+		graph.setSourceWeights(sourceWeights);
+		assertEquals("(1,1) (2,2) (3,3) (4,4) (4,5) (5,6)", graph.lexicographicallySmallestForDisplay());
+		assertEquals(16, graph.getMinimumWeight());
+	}
+
+	@Test
+	public void bonus2WrapsColumns() {
+		int[][] bonus2Matrix = {{1, 1, 1}, {0, 1, 0}, {1, 1, 1}};
+		GridGraph graph = new GridGraph(bonus2Matrix, NeighborStencil.BONUS2);
+		setSourceAndDestination(graph, 1, 0, 1, 2);
+		assertEquals("(2,1) (2,3)", graph.lexicographicallySmallestForDisplay());
+		assertEquals(0, graph.getMinimumWeight());
+	}
+
+	@Test
+	public void bonus1DoesNotWrapColumns() {
+		int[][] bonus1Matrix = {{1, 1, 1}, {0, 1, 0}, {1, 1, 1}};
+		GridGraph graph = new GridGraph(bonus1Matrix, NeighborStencil.BONUS1);
+		setSourceAndDestination(graph, 1, 0, 1, 2);
+		graph.findShortestPathFromSourcesAndDestinations();
+		assertEquals(1, graph.getMinimumWeight());
+	}
+
+	@Test
+	public void neighborsFollowTheStencil() {
+		GridGraph standard = new GridGraph(weightMatrix, NeighborStencil.STANDARD);
+		assertEquals(3, standard.getNeighbors(standard.getNode(0, 0)).size());
+		assertEquals(0, standard.getNeighbors(standard.getNode(0, 5)).size());
+		GridGraph bonus1 = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		assertEquals(5, bonus1.getNeighbors(bonus1.getNode(0, 0)).size());
+		GridGraph bonus2 = new GridGraph(weightMatrix, NeighborStencil.BONUS2);
+		assertEquals(8, bonus2.getNeighbors(bonus2.getNode(0, 0)).size());
+	}
+
+	@Test
+	public void goalDirectedFindsTheSameWeightWithFewerSettledNodes() {
+		int[][] largeMatrix = new int[60][60];
+		for (int row = 0; row < 60; row++)
+			for (int col = 0; col < 60; col++)
+				largeMatrix[row][col] = 1 + (row * 7 + col * 3) % 5;
+		GridGraph dijkstra = new GridGraph(largeMatrix, NeighborStencil.BONUS2);
+		setSourceAndDestination(dijkstra, 10, 10, 20, 25);
+		dijkstra.findShortestPathFromSourcesAndDestinations();
+		GridGraph aStar = new GridGraph(largeMatrix, NeighborStencil.BONUS2);
+		setSourceAndDestination(aStar, 10, 10, 20, 25);
+		aStar.setGoalDirected(true);
+		aStar.findShortestPathFromSourcesAndDestinations();
+		assertEquals(dijkstra.getMinimumWeight(), aStar.getMinimumWeight());
+		assertTrue(aStar.getSettledNodesCount() < dijkstra.getSettledNodesCount());
+	}
+
+	@Test
+	public void columnSweepWeightDoesNotOverflow() {
+		int[][] heavy = {{1 << 30, 1 << 30, 1 << 30}, {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE}};
+		GridGraph graph = new GridGraph(heavy, NeighborStencil.STANDARD);
+		graph.setColumnSweep(true);
+		graph.findShortestPathFromSourcesAndDestinations();
+		assertEquals(3L << 30, graph.getMinimumWeight());
+	}
+
+	@Test
+	public void dijkstraWeightDoesNotOverflow() {
+		int[][] heavy = new int[5][5];
+		for (int[] row : heavy)
+			Arrays.fill(row, 1000000000);
+		for (int mode = 0; mode < 3; mode++) {
+			GridGraph graph = new GridGraph(heavy, NeighborStencil.BONUS1);
+			setSourceAndDestination(graph, 0, 0, 2, 4);
+			graph.setBidirectional(mode == 1);
+			graph.setGoalDirected(mode == 2);
+			graph.findShortestPathFromSourcesAndDestinations();
+			assertEquals(5000000000L, graph.getMinimumWeight());
+			assertEquals(5000000000L, graph.findShortestPath(0, 0, 2, 4).getWeight());
+		}
+	}
+
+	@Test (expected = CancellationException.class)
+	public void cancelledGraphStopsDijkstra() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		setSourceAndDestination(graph, 0, 0, 4, 5);
+		graph.cancel();
+		graph.findShortestPathFromSourcesAndDestinations();
+	}
+
+	@Test (expected = CancellationException.class)
+	public void cancelledGraphStopsTheSweep() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.STANDARD);
+		graph.setColumnSweep(true);
+		graph.cancel();
+		graph.findShortestPathFromSourcesAndDestinations();
+	}
+
+	@Test
+	public void solveWithinTimeIsTheCompleteSolve() {
+		GridGraph expected = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		setSourceAndDestination(expected, 0, 0, 4, 5);
+		expected.findShortestPathFromSourcesAndDestinations();
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		setSourceAndDestination(graph, 0, 0, 4, 5);
+		Solution solution = graph.solveWithin(1, TimeUnit.MINUTES);
+		assertTrue(solution.isOptimal());
+		assertEquals(expected.getMinimumWeight(), solution.getWeight());
+		assertEquals(solution.getWeight(), solution.getLowerBound());
+	}
+
+	@Test
+	public void solveWithinTwiceGivesTheSameSolution() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.STANDARD);
+		setStandardSourcesAndDestinations(graph);
+		graph.setColumnSweep(true);
+		Solution first = graph.solveWithin(1, TimeUnit.MINUTES);
+		Solution second = graph.solveWithin(1, TimeUnit.MINUTES);
+		assertTrue(second.isOptimal());
+		assertEquals(first.toString(), second.toString());
+		assertEquals(16, second.getWeight());
+		// an expired solve after a complete one gives its own path, not the weight left by the complete one
+		Solution expired = graph.solveWithin(0, TimeUnit.MILLISECONDS);
+		assertFalse(expired.isOptimal());
+		assertEquals("(1,1) (2,2) (1,3) (1,4) (5,5) (5,6)", expired.toString());
+		assertEquals(17, expired.getWeight());
+	}
+
+	@Test
+	public void expiredSweepBoundsTheWeightByTheColumnsSwept() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.STANDARD);
+		setStandardSourcesAndDestinations(graph);
+		graph.setColumnSweep(true);
+		Solution solution = graph.solveWithin(0, TimeUnit.MILLISECONDS);
+		assertFalse(solution.isOptimal());
+		// the walk from the lightest source, the complete solve gives 16
+		assertEquals("(1,1) (2,2) (1,3) (1,4) (5,5) (5,6)", solution.toString());
+		assertEquals(17, solution.getWeight());
+		// the sweep goes from the first column, whose lightest cell is the bound
+		assertEquals(3, solution.getLowerBound());
+	}
+
+	@Test
+	public void expiredSearchFallsBackOnTheWalkToTheDestination() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		graph.setSources(Arrays.asList(graph.getNode(0, 0)));
+		graph.setDestinations(Arrays.asList(graph.getNode(3, 4)));
+		graph.setSourceWeights(Arrays.asList(graph.getWeight(0, 0)));
+		Solution solution = graph.solveWithin(0, TimeUnit.MILLISECONDS);
+		assertFalse(solution.isOptimal());
+		// each move is the lightest of the cells one move closer to the destination
+		assertEquals("(1,1) (2,2) (1,3) (5,4) (4,5)", solution.toString());
+		assertEquals(15, solution.getWeight());
+	}
+
+	@Test
+	public void expiredSearchKeepsTheBestPathFound() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.STANDARD) {
+			// the deadline passes once the first pair has its path
+			protected void keepIfShorter(int[] path, long weight, LinkedList<Node> minimumPath) {
+				super.keepIfShorter(path, weight, minimumPath);
+				getWorkspace().setDeadline(System.nanoTime());
+			}
+			
+			// without the walk, which weighs 17
+			protected ShortestPath findFallbackPath() {
+				return null;
+			}
+		};
+		setStandardSourcesAndDestinations(graph);
+		Solution solution = graph.solveWithin(1, TimeUnit.MINUTES);
+		assertFalse(solution.isOptimal());
+		assertEquals("(1,1) (2,2) (1,3) (1,4) (5,5) (1,6)", solution.toString());
+		assertEquals(19, solution.getWeight());
+		// the sources of the pairs left, the complete solve gives 16
+		assertEquals(3, solution.getLowerBound());
+	}
+
+	@Test
+	public void lowerBoundUsesTheWrapAround() {
+		int[][] ones = {{1, 1, 1, 1, 1}, {1, 1, 1, 1, 1}, {1, 1, 1, 1, 1}, {1, 1, 1, 1, 1}};
+		GridGraph bonus1 = new GridGraph(ones, NeighborStencil.BONUS1);
+		assertEquals(4, bonus1.getLowerBound(0, 3 * 5 + 4));
+		GridGraph bonus2 = new GridGraph(ones, NeighborStencil.BONUS2);
+		assertEquals(1, bonus2.getLowerBound(0, 3 * 5 + 4));
+	}
+
+	@Test
+	public void lowerBoundDoesNotOverflow() {
+		int[][] heavy = new int[3][5];
+		for (int[] row : heavy)
+			Arrays.fill(row, 1000000000);
+		GridGraph bonus1 = new GridGraph(heavy, NeighborStencil.BONUS1);
+		assertEquals(4000000000L, bonus1.getLowerBound(0, 4));
+	}
+
+	private void setStandardSourcesAndDestinations(GridGraph graph) {
+		List<Node> sources = new ArrayList<Node>();
+		List<Node> destinations = new ArrayList<Node>();
+		List<Integer> sourceWeights = new ArrayList<Integer>();
+		for (int row = 0; row < graph.getRows(); row++) {
+			sources.add(graph.getNode(row, 0));
+			destinations.add(graph.getNode(row, graph.getColumns()-1));
+			sourceWeights.add(graph.getWeight(row, 0));
+		}
+		graph.setSources(sources);
+		graph.setDestinations(destinations);
+		graph.setSourceWeights(sourceWeights);
+	}
+
+	private void setSourceAndDestination(GridGraph graph, int sourceRow, int sourceCol, int destRow, int destCol) {
+		List<Node> sources = new ArrayList<Node>();
+		sources.add(graph.getNode(sourceRow, sourceCol));
+		List<Node> destinations = new ArrayList<Node>();
+		destinations.add(graph.getNode(destRow, destCol));
+		List<Integer> sourceWeights = new ArrayList<Integer>();
+		sourceWeights.add(graph.getWeight(sourceRow, sourceCol));
+		graph.setSources(sources);
+		graph.setDestinations(destinations);
+		graph.setSourceWeights(sourceWeights);
+	}
+}
@@ -0,0 +1,78 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.IndexedMinHeap;
+
+/**
+ * Tests the priority queue used by Dijkstra: order by distance, decrease-key and ties
+ */
+public class IndexedMinHeapTest {
+
+	@Test
+	public void pollReturnsNodesByDistance() {
+		IndexedMinHeap heap = new IndexedMinHeap(5);
+		heap.push(0, 7);
+		heap.push(1, 3);
+		heap.push(2, 5);
+		heap.push(3, 1);
+		assertEquals(3, heap.poll());
+		assertEquals(1, heap.poll());
+		assertEquals(2, heap.poll());
+		assertEquals(0, heap.poll());
+		assertTrue(heap.isEmpty());
+	}
+
+	@Test
+	public void pushOnlyDecreasesTheDistance() {
+		IndexedMinHeap heap = new IndexedMinHeap(3);
+		heap.push(0, 4);
+		heap.push(1, 6);
+		heap.push(1, 2);
+		heap.push(0, 9);
+		assertEquals(2, heap.getKey(1));
+		assertEquals(4, heap.getKey(0));
+		assertEquals(1, heap.poll());
+		assertFalse(heap.contains(1));
+		assertEquals(0, heap.poll());
+	}
+
+	@Test
+	public void tiesAreBrokenOnIndex() {
+		IndexedMinHeap heap = new IndexedMinHeap(3);
+		heap.push(2, 1);
+		heap.push(0, 1);
+		heap.push(1, 1);
+		assertEquals(0, heap.poll());
+		assertEquals(1, heap.poll());
+		assertEquals(2, heap.poll());
+	}
+
+	@Test
+	public void tiesOfAMatrixAreBrokenOnColumn() {
+		// a matrix of 2 rows and 3 columns, the node 4 is the cell of row 1 and column 1
+		IndexedMinHeap heap = new IndexedMinHeap(6, 3);
+		heap.push(4, 1);
+		heap.push(2, 1);
+		heap.push(3, 1);
+		heap.push(1, 1);
+		assertEquals(3, heap.poll());
+		assertEquals(1, heap.poll());
+		assertEquals(4, heap.poll());
+		assertEquals(2, heap.poll());
+	}
+
+	@Test
+	public void clearEmptiesTheHeap() {
+		IndexedMinHeap heap = new IndexedMinHeap(3);
+		heap.push(0, 1);
+		heap.push(2, 1);
+		heap.clear();
+		assertTrue(heap.isEmpty());
+		assertFalse(heap.contains(2));
+	}
+}
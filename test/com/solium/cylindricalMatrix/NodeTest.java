@@ -1,5 +1,8 @@
 package com.solium.cylindricalMatrix;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import org.junit.Test;
 
 import com.solium.cylindricalMatrix.Node;
@@ -11,4 +14,19 @@ public class NodeTest {
     public void IdShouldContainRowAndColumnSeparatedByComma() {
         new Node("randomId");
     }
+
+    @Test
+    public void IdIsMadeFromRowAndColumn() {
+        Node node = new Node("12,3");
+        assertEquals(12, node.getRow());
+        assertEquals(3, node.getColumn());
+        assertEquals("12,3", new Node(12, 3).getId());
+    }
+
+    @Test
+    public void NodesAreOrderedByRowNumberThenColumnNumber() {
+        assertTrue(new Node("2,1").compareTo(new Node("10,1")) < 0);
+        assertTrue(new Node("2,10").compareTo(new Node("2,9")) > 0);
+        assertEquals(0, new Node(4, 5).compareTo(new Node("4,5")));
+    }
 }
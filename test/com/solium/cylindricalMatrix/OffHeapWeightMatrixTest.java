@@ -0,0 +1,90 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.OffHeapWeightMatrix;
+
+/**
+ * Tests the weights kept outside the heap are read back across the buffers, and are solved like the same weights
+ * kept in arrays
+ */
+public class OffHeapWeightMatrixTest {
+
+	@Test
+	public void weightsAreReadAcrossBuffers() {
+		// buffers of 16 bytes, so that rows, and wide weights after widening, span several buffers
+		OffHeapWeightMatrix matrix = new OffHeapWeightMatrix(5, 7, 4);
+		int[][] weights = new int[5][7];
+		Random random = new Random(7);
+		for (int row = 0; row < 5; row++) {
+			for (int col = 0; col < 7; col++)
+				weights[row][col] = random.nextInt(256);
+		}
+		weights[3][2] = 1000;
+		weights[4][6] = -3;
+		for (int row = 0; row < 5; row++) {
+			matrix.setRow(row, weights[row]);
+			assertEquals(row < 3 ? 1 : row == 3 ? 2 : 4, matrix.getWidth());
+		}
+		assertEquals(35L, matrix.getCellCount());
+		for (int row = 0; row < 5; row++) {
+			for (int col = 0; col < 7; col++) {
+				assertEquals(weights[row][col], matrix.get(row, col));
+				assertEquals(weights[row][col], matrix.get((long) row * 7 + col));
+			}
+		}
+	}
+
+	@Test
+	public void mappedWeightsAreReadInPlace() throws Exception {
+		File file = File.createTempFile("weights", ".bin");
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				ByteBuffer bytes = ByteBuffer.allocate(3 + 6 * 2).order(ByteOrder.LITTLE_ENDIAN);
+				bytes.put(new byte[3]);
+				for (int weight : new int[] {1, 65535, 3, 300, 5, 6})
+					bytes.putShort((short) weight);
+				raf.write(bytes.array());
+				OffHeapWeightMatrix matrix = OffHeapWeightMatrix.map(raf.getChannel(), 3, 2, 3, 2);
+				assertEquals(65535, matrix.get(0, 1));
+				assertEquals(300, matrix.get(3));
+				assertEquals(6, matrix.get(1, 2));
+			}
+			finally {
+				raf.close();
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void columnSweepSolvesTheWeightsOutsideTheHeap() {
+		int[][] weights = new int[30][40];
+		Random random = new Random(11);
+		OffHeapWeightMatrix matrix = new OffHeapWeightMatrix(30, 40, 6);
+		for (int row = 0; row < 30; row++) {
+			for (int col = 0; col < 40; col++)
+				weights[row][col] = random.nextInt(20);
+			matrix.setRow(row, weights[row]);
+		}
+		ColumnSweepSolver inHeap = new ColumnSweepSolver(weights);
+		ColumnSweepSolver offHeap = new ColumnSweepSolver(matrix);
+		assertTrue(inHeap.solve());
+		assertTrue(offHeap.solve());
+		assertEquals(inHeap.getMinimumWeight(), offHeap.getMinimumWeight());
+		assertTrue(Arrays.equals(inHeap.getPathRows(), offHeap.getPathRows()));
+	}
+}
@@ -0,0 +1,129 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.Edge;
+import com.solium.cylindricalMatrix.Graph;
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.NeighborStencil;
+import com.solium.cylindricalMatrix.Node;
+import com.solium.cylindricalMatrix.ShortestPath;
+
+/**
+ * Tests the per call queries give the path of the graph search, and can run at the same time on one graph
+ */
+public class ShortestPathTest {
+	int[][] weightMatrix = {
+			{3, 4, 1, 2, 8, 6},
+			{6, 1, 8, 2, 7, 4},
+			{5, 9, 3, 9, 9, 5},
+			{8, 4, 1, 3, 2, 6},
+			{3, 7, 2, 8, 6, 4}};
+
+	@Test
+	public void queryGivesThePathOfTheGraphSearch() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS2);
+		ShortestPath result = graph.findShortestPath(0, 0, 3, 5);
+		assertTrue(result.isFound());
+		assertEquals(expectedDisplay(NeighborStencil.BONUS2, 0, 0, 3, 5), result.toString());
+		assertEquals(expectedWeight(NeighborStencil.BONUS2, 0, 0, 3, 5), result.getWeight());
+		assertEquals(Long.MAX_VALUE, graph.getMinimumWeight());
+	}
+
+	@Test
+	public void unreachableDestinationGivesAnEmptyPath() {
+		Node node1 = new Node("1,1");
+		Node node2 = new Node("1,2");
+		Node node3 = new Node("2,1");
+		List<Edge> edges = new ArrayList<Edge>();
+		edges.add(new Edge(node1, node2, 1));
+		edges.add(new Edge(node3, node2, 1));
+		Graph graph = new Graph(edges);
+		graph.setSources(new ArrayList<Node>());
+		graph.setDestinations(new ArrayList<Node>());
+		ShortestPath result = graph.findShortestPath(node1, 2, node3);
+		assertFalse(result.isFound());
+		assertEquals(Long.MAX_VALUE, result.getWeight());
+		assertEquals(3, graph.findShortestPath(node1, 2, node2).getWeight());
+	}
+
+	@Test
+	public void concurrentQueriesShareOneGraph() throws Exception {
+		final int[][] matrix = new int[40][30];
+		Random random = new Random(11);
+		for (int[] row : matrix)
+			for (int col = 0; col < row.length; col++)
+				row[col] = random.nextInt(10);
+		final GridGraph graph = new GridGraph(matrix, NeighborStencil.BONUS1);
+		graph.setEdgeWeightRange(0, 9);
+		final int[][] queries = new int[200][];
+		for (int i = 0; i < queries.length; i++)
+			queries[i] = new int[] {random.nextInt(40), random.nextInt(30), random.nextInt(40), random.nextInt(30)};
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<Future<ShortestPath>> results = new ArrayList<Future<ShortestPath>>();
+		for (final int[] query : queries) {
+			results.add(pool.submit(new Callable<ShortestPath>() {
+				public ShortestPath call() {
+					return graph.findShortestPath(query[0], query[1], query[2], query[3]);
+				}
+			}));
+		}
+		pool.shutdown();
+		GridGraph sequential = new GridGraph(matrix, NeighborStencil.BONUS1);
+		for (int i = 0; i < queries.length; i++) {
+			ShortestPath expected = sequential.findShortestPath(queries[i][0], queries[i][1], queries[i][2], queries[i][3]);
+			ShortestPath actual = results.get(i).get();
+			assertEquals(expected.getWeight(), actual.getWeight());
+			assertEquals(expected.toString(), actual.toString());
+		}
+	}
+
+	@Test
+	public void queriesAreNotStoppedByTheSolveOfTheGraph() {
+		GridGraph graph = search(NeighborStencil.BONUS1, 0, 0, 3, 5);
+		// a solve that has run out of time, then a cancel of the graph
+		assertFalse(graph.solveWithin(0, TimeUnit.MILLISECONDS).isOptimal());
+		graph.cancel();
+		ShortestPath result = graph.findShortestPath(0, 0, 3, 5);
+		assertEquals(expectedDisplay(NeighborStencil.BONUS1, 0, 0, 3, 5), result.toString());
+		assertEquals(expectedWeight(NeighborStencil.BONUS1, 0, 0, 3, 5), result.getWeight());
+	}
+
+	private String expectedDisplay(NeighborStencil stencil, int sourceRow, int sourceCol, int destRow, int destCol) {
+		return search(stencil, sourceRow, sourceCol, destRow, destCol).lexicographicallySmallestForDisplay();
+	}
+
+	private long expectedWeight(NeighborStencil stencil, int sourceRow, int sourceCol, int destRow, int destCol) {
+		GridGraph graph = search(stencil, sourceRow, sourceCol, destRow, destCol);
+		graph.findShortestPathFromSourcesAndDestinations();
+		return graph.getMinimumWeight();
+	}
+
+	private GridGraph search(NeighborStencil stencil, int sourceRow, int sourceCol, int destRow, int destCol) {
+		GridGraph graph = new GridGraph(weightMatrix, stencil);
+		List<Node> sources = new ArrayList<Node>();
+		sources.add(graph.getNode(sourceRow, sourceCol));
+		List<Node> destinations = new ArrayList<Node>();
+		destinations.add(graph.getNode(destRow, destCol));
+		List<Integer> sourceWeights = new ArrayList<Integer>();
+		sourceWeights.add(weightMatrix[sourceRow][sourceCol]);
+		graph.setSources(sources);
+		graph.setDestinations(destinations);
+		graph.setSourceWeights(sourceWeights);
+		return graph;
+	}
+}
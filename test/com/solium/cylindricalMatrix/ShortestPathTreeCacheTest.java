@@ -0,0 +1,111 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.NeighborStencil;
+import com.solium.cylindricalMatrix.ShortestPath;
+import com.solium.cylindricalMatrix.ShortestPathTree;
+import com.solium.cylindricalMatrix.ShortestPathTreeCache;
+
+/**
+ * Tests the cached trees give the paths of the searches, and the cache keeps, evicts and shares its trees
+ */
+public class ShortestPathTreeCacheTest {
+	int[][] weightMatrix = {
+			{3, 4, 1, 2, 8, 6},
+			{6, 1, 8, 2, 7, 4},
+			{5, 9, 3, 9, 9, 5},
+			{8, 4, 1, 3, 2, 6},
+			{3, 7, 2, 8, 6, 4}};
+
+	@Test
+	public void cachedTreesGiveThePathsOfTheSearches() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS2);
+		GridGraph cachedGraph = new GridGraph(weightMatrix, NeighborStencil.BONUS2);
+		ShortestPathTreeCache cache = new ShortestPathTreeCache(4, Long.MAX_VALUE);
+		cachedGraph.setTreeCache(cache);
+		for (int source = 0; source < 30; source++) {
+			for (int destination = 0; destination < 30; destination++) {
+				ShortestPath expected = graph.findShortestPath(source / 6, source % 6, destination / 6, destination % 6);
+				ShortestPath cached = cachedGraph.findShortestPath(source / 6, source % 6, destination / 6, destination % 6);
+				assertEquals(expected.toString(), cached.toString());
+				assertEquals(expected.getWeight(), cached.getWeight());
+			}
+		}
+		assertEquals(30, cache.getMisses());
+		assertEquals(30 * 29, cache.getHits());
+		assertEquals(26, cache.getEvictions());
+		assertEquals(4, cache.size());
+	}
+
+	@Test
+	public void leastRecentlyUsedTreeIsEvicted() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		ShortestPathTreeCache cache = new ShortestPathTreeCache(2, Long.MAX_VALUE);
+		ShortestPathTree first = cache.get(graph, 0);
+		cache.get(graph, 1);
+		assertSame(first, cache.get(graph, 0));
+		cache.get(graph, 2);
+		assertSame(first, cache.get(graph, 0));
+		assertEquals(1, cache.getEvictions());
+		// the tree of source 1 was evicted
+		cache.get(graph, 1);
+		assertEquals(4, cache.getMisses());
+	}
+
+	@Test
+	public void byteLimitEvictsTrees() {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		ShortestPathTreeCache cache = new ShortestPathTreeCache(100, 3 * 12 * 30);
+		for (int source = 0; source < 5; source++)
+			cache.get(graph, source);
+		assertEquals(3, cache.size());
+		assertEquals(3 * 12 * 30, cache.getSizeInBytes());
+		assertEquals(2, cache.getEvictions());
+	}
+
+	@Test
+	public void graphsOfTheSameMatrixShareTheirTrees() {
+		ShortestPathTreeCache cache = new ShortestPathTreeCache(10, Long.MAX_VALUE);
+		ShortestPathTree tree = cache.get(new GridGraph(weightMatrix, NeighborStencil.BONUS1), 3);
+		assertSame(tree, cache.get(new GridGraph(weightMatrix, NeighborStencil.BONUS1), 3));
+		cache.get(new GridGraph(weightMatrix, NeighborStencil.BONUS2), 3);
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void concurrentRequestsGrowOneTree() throws Exception {
+		final GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS2);
+		final ShortestPathTreeCache cache = new ShortestPathTreeCache(10, Long.MAX_VALUE);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<ShortestPathTree>> trees = new ArrayList<Future<ShortestPathTree>>();
+			for (int i = 0; i < 100; i++) {
+				trees.add(executor.submit(new Callable<ShortestPathTree>() {
+					public ShortestPathTree call() {
+						return cache.get(graph, 7);
+					}
+				}));
+			}
+			ShortestPathTree tree = trees.get(0).get();
+			for (Future<ShortestPathTree> other : trees)
+				assertSame(tree, other.get());
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertEquals(1, cache.getMisses());
+		assertEquals(99, cache.getHits());
+	}
+}
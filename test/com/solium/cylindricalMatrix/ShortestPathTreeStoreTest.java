@@ -0,0 +1,109 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.NeighborStencil;
+import com.solium.cylindricalMatrix.ShortestPath;
+import com.solium.cylindricalMatrix.ShortestPathTree;
+import com.solium.cylindricalMatrix.ShortestPathTreeStore;
+
+/**
+ * Tests the trees read back from the store are the trees saved, and a later graph answers from them
+ */
+public class ShortestPathTreeStoreTest {
+	int[][] weightMatrix = {
+			{3, 4, 1, 2, 8, 6},
+			{6, 1, 8, 2, 7, 4},
+			{5, 9, 3, 9, 9, 5},
+			{8, 4, 1, 3, 2, 6},
+			{3, 7, 2, 8, 6, 4}};
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("trees", "");
+		directory.delete();
+	}
+
+	@After
+	public void deleteDirectory() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files)
+				file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void savedTreeIsReadBack() throws IOException {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS2);
+		ShortestPathTree tree = graph.findShortestPathTree(8);
+		ShortestPathTreeStore store = new ShortestPathTreeStore(directory);
+		store.save(graph.getContentHash(), "BONUS2", tree);
+		ShortestPathTree loaded = store.load(graph.getContentHash(), "BONUS2", 8, 30);
+		assertEquals(8, loaded.getSource());
+		assertEquals(tree.getSettledNodesCount(), loaded.getSettledNodesCount());
+		for (int node = 0; node < 30; node++) {
+			assertEquals(tree.getDistance(node), loaded.getDistance(node));
+			assertEquals(tree.getPredecessor(node), loaded.getPredecessor(node));
+		}
+		assertNull(store.load(graph.getContentHash(), "BONUS1", 8, 30));
+		assertNull(store.load(graph.getContentHash(), "BONUS2", 9, 30));
+		assertEquals(1, store.getHits());
+		assertEquals(2, store.getMisses());
+	}
+
+	@Test
+	public void laterGraphAnswersFromTheStore() throws IOException {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		graph.setTreeStore(new ShortestPathTreeStore(directory));
+		ShortestPath first = graph.findShortestPath(0, 0, 3, 5);
+
+		GridGraph laterGraph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		ShortestPathTreeStore store = new ShortestPathTreeStore(directory);
+		laterGraph.setTreeStore(store);
+		ShortestPath later = laterGraph.findShortestPath(0, 0, 3, 5);
+		assertEquals(first.toString(), later.toString());
+		assertEquals(first.getWeight(), later.getWeight());
+		assertEquals(new GridGraph(weightMatrix, NeighborStencil.BONUS1).findShortestPath(0, 0, 3, 5).toString(), later.toString());
+		assertEquals(1, store.getHits());
+	}
+
+	@Test
+	public void savingAgainReplacesTheFile() throws IOException {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		ShortestPathTreeStore store = new ShortestPathTreeStore(directory);
+		store.save(graph.getContentHash(), "BONUS1", graph.findShortestPathTree(0));
+		File file = directory.listFiles()[0];
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(new byte[24 + 12 * 30]);
+		out.close();
+		store.save(graph.getContentHash(), "BONUS1", graph.findShortestPathTree(0));
+		assertEquals(1, directory.listFiles().length);
+		assertEquals(graph.findShortestPathTree(0).getDistance(29), store.load(graph.getContentHash(), "BONUS1", 0, 30).getDistance(29));
+	}
+
+	@Test
+	public void damagedFileIsAMiss() throws IOException {
+		GridGraph graph = new GridGraph(weightMatrix, NeighborStencil.BONUS1);
+		ShortestPathTreeStore store = new ShortestPathTreeStore(directory);
+		store.save(graph.getContentHash(), "BONUS1", graph.findShortestPathTree(0));
+		File file = directory.listFiles()[0];
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(new byte[24 + 8 * 30]);
+		out.close();
+		assertNull(store.load(graph.getContentHash(), "BONUS1", 0, 30));
+	}
+}
@@ -0,0 +1,70 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.IndexedMinHeap;
+import com.solium.cylindricalMatrix.NeighborStencil;
+import com.solium.cylindricalMatrix.Node;
+import com.solium.cylindricalMatrix.SolverWorkspace;
+
+/**
+ * Tests the workspace keeps the state of a search and forgets it when it is reset
+ */
+public class SolverWorkspaceTest {
+
+	@Test
+	public void nodesAreUnreachedUntilTheirDistanceIsSet() {
+		SolverWorkspace workspace = new SolverWorkspace(new IndexedMinHeap(4));
+		assertEquals(4, workspace.capacity());
+		assertEquals(SolverWorkspace.UNREACHED, workspace.getDistance(2));
+		assertEquals(-1, workspace.getPredecessor(2));
+		workspace.setDistance(2, 7, 1);
+		workspace.setSolved(2);
+		assertEquals(7, workspace.getDistance(2));
+		assertEquals(1, workspace.getPredecessor(2));
+		assertTrue(workspace.isSolved(2));
+	}
+
+	@Test
+	public void resetForgetsTheLastSearch() {
+		SolverWorkspace workspace = new SolverWorkspace(new IndexedMinHeap(3));
+		workspace.setDistance(0, 0, -1);
+		workspace.setSolved(0);
+		workspace.setDistance(1, 5, 0);
+		workspace.getQueue().push(1, 5);
+		workspace.reset();
+		assertEquals(SolverWorkspace.UNREACHED, workspace.getDistance(1));
+		assertEquals(-1, workspace.getPredecessor(1));
+		assertFalse(workspace.isSolved(0));
+		assertTrue(workspace.getQueue().isEmpty());
+		workspace.setDistance(1, 3, 2);
+		assertEquals(3, workspace.getDistance(1));
+	}
+
+	@Test
+	public void graphReusesItsWorkspaceForEveryPair() {
+		GridGraph graph = new GridGraph(new int[][] {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}}, NeighborStencil.STANDARD);
+		List<Node> sources = new ArrayList<Node>();
+		List<Node> destinations = new ArrayList<Node>();
+		List<Integer> sourceWeights = new ArrayList<Integer>();
+		for (int row = 0; row < 3; row++) {
+			sources.add(graph.getNode(row, 0));
+			destinations.add(graph.getNode(row, 2));
+			sourceWeights.add(graph.getWeight(row, 0));
+		}
+		graph.setSources(sources);
+		graph.setDestinations(destinations);
+		graph.setSourceWeights(sourceWeights);
+		assertEquals("(1,1) (1,2) (1,3)", graph.lexicographicallySmallestForDisplay());
+		assertEquals(6, graph.getMinimumWeight());
+		assertFalse(graph.isSolved(graph.getNode(0, 0)));
+	}
+}
@@ -0,0 +1,89 @@
+package com.solium.cylindricalMatrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.StreamingColumnSweepSolver;
+
+/**
+ * Tests the columns given one at a time are solved like the whole matrix by ColumnSweepSolver, and the temporary
+ * file of the predecessors is deleted
+ */
+public class StreamingColumnSweepSolverTest {
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("spill", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void deleteDirectory() {
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+
+	@Test
+	public void columnsAreSolvedLikeTheMatrix() throws IOException {
+		Random random = new Random(13);
+		for (int i = 0; i < 50; i++) {
+			int[][] weightMatrix = new int[1 + random.nextInt(12)][1 + random.nextInt(12)];
+			for (int[] row : weightMatrix) {
+				for (int col = 0; col < row.length; col++)
+					row[col] = random.nextInt(4);
+			}
+			ColumnSweepSolver expected = new ColumnSweepSolver(weightMatrix);
+			assertTrue(expected.solve());
+			StreamingColumnSweepSolver solver = solve(weightMatrix);
+			assertEquals(expected.getMinimumWeight(), solver.getMinimumWeight());
+			assertArrayEquals(expected.getPathRows(), solver.getPathRows());
+			assertEquals(0, directory.listFiles().length);
+		}
+	}
+
+	@Test
+	public void weightDoesNotOverflow() throws IOException {
+		int max = Integer.MAX_VALUE;
+		StreamingColumnSweepSolver solver = solve(new int[][] {{max, max, max}, {max, max, max}});
+		assertEquals(3L * max, solver.getMinimumWeight());
+	}
+
+	@Test (expected = IllegalStateException.class)
+	public void everyColumnMustBeGiven() throws IOException {
+		StreamingColumnSweepSolver solver = new StreamingColumnSweepSolver(2, 2, directory);
+		try {
+			solver.addColumn(new int[] {1, 2});
+			solver.finish();
+		}
+		finally {
+			solver.close();
+		}
+	}
+
+	private StreamingColumnSweepSolver solve(int[][] weightMatrix) throws IOException {
+		int rows = weightMatrix.length;
+		int cols = weightMatrix[0].length;
+		StreamingColumnSweepSolver solver = new StreamingColumnSweepSolver(rows, cols, directory);
+		int[] column = new int[rows];
+		for (int col = 0; col < cols; col++) {
+			for (int row = 0; row < rows; row++)
+				column[row] = weightMatrix[row][col];
+			solver.addColumn(column);
+		}
+		assertTrue(solver.finish());
+		return solver;
+	}
+}
@@ -0,0 +1,193 @@
+package com.solium.cylindricalMatrix.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.Solution;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException;
+
+/**
+ * Tests the asynchronous solver answers like the program, keeps at most the maximum number of input files in
+ * flight, and stops the searches of the cancelled futures
+ */
+public class AsyncSolverTest {
+
+	private static final String CONFIG = "B1\n3 4 1,1 3,4\n3 4 1 2\n6 1 8 2\n5 9 3 9";
+
+	@Test
+	public void solutionsAreTheOnesOfTheProgram() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			AsyncSolver solver = new AsyncSolver(executor, 2, true);
+			Random random = new Random(29);
+			List<String> configs = new ArrayList<String>();
+			List<CompletableFuture<Solution>> solutions = new ArrayList<CompletableFuture<Solution>>();
+			String[] headers = {"S", "B1", "B2"};
+			for (int i = 0; i < 30; i++) {
+				int rows = 1 + random.nextInt(20);
+				int cols = 1 + random.nextInt(20);
+				StringBuilder config = new StringBuilder(headers[i % 3]).append('\n').append(rows).append(' ').append(cols);
+				if (i % 3 != 0)
+					config.append(" 1,1 ").append(rows).append(',').append(cols);
+				for (int row = 0; row < rows; row++) {
+					config.append('\n');
+					for (int col = 0; col < cols; col++)
+						config.append(col > 0 ? " " : "").append(random.nextInt(10));
+				}
+				configs.add(config.toString());
+				solutions.add(solver.solve(config.toString()));
+			}
+			for (int i = 0; i < configs.size(); i++) {
+				GridGraph graph = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(configs.get(i)));
+				Solution solution = solutions.get(i).get();
+				assertEquals(graph.lexicographicallySmallestForDisplay(), solution.toString());
+				assertEquals(graph.getMinimumWeight(), solution.getWeight());
+			}
+			assertEquals(0, solver.getInFlightCount());
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void inputFilePastTheLimitIsRejected() throws Exception {
+		HeldExecutor executor = new HeldExecutor();
+		AsyncSolver solver = new AsyncSolver(executor, 1, false);
+		CompletableFuture<Solution> first = solver.solve(CONFIG);
+		CompletableFuture<Solution> second = solver.solve(CONFIG);
+		assertTrue(second.isCompletedExceptionally());
+		try {
+			second.get();
+			fail("The second input file should be rejected");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+		executor.runAll();
+		assertEquals(14, first.get().getWeight());
+		assertEquals(0, solver.getInFlightCount());
+	}
+
+	@Test
+	public void inputFilePastTheLimitWaits() throws Exception {
+		HeldExecutor executor = new HeldExecutor();
+		AsyncSolver solver = new AsyncSolver(executor, 1, true);
+		CompletableFuture<Solution> first = solver.solve(CONFIG);
+		CompletableFuture<Solution> second = solver.solve(CONFIG);
+		assertEquals(1, solver.getInFlightCount());
+		assertEquals(1, solver.getWaitingCount());
+		executor.runAll();
+		assertEquals(14, first.get().getWeight());
+		assertEquals(14, second.get().getWeight());
+		assertEquals(0, solver.getInFlightCount());
+	}
+
+	@Test
+	public void cancelledInputFileLeavesTheQueue() throws Exception {
+		HeldExecutor executor = new HeldExecutor();
+		AsyncSolver solver = new AsyncSolver(executor, 1, true);
+		CompletableFuture<Solution> first = solver.solve(CONFIG);
+		CompletableFuture<Solution> second = solver.solve(CONFIG);
+		second.cancel(false);
+		assertEquals(0, solver.getWaitingCount());
+		first.cancel(false);
+		// the cancelled input file is in flight until its task has run and seen the cancel
+		assertEquals(1, solver.getInFlightCount());
+		executor.runAll();
+		assertEquals(0, solver.getInFlightCount());
+		assertTrue(first.isCancelled());
+	}
+
+	@Test
+	public void cancelStopsTheRunningSearch() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		final boolean[] stopped = new boolean[1];
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AsyncSolver solver = new AsyncSolver(executor, 1, false) {
+			// the search waits for the cancel, so that it is running when it comes
+			protected Solution solveGraph(GridGraph graph) {
+				started.countDown();
+				try {
+					cancelled.await();
+				}
+				catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				try {
+					return super.solveGraph(graph);
+				}
+				catch (CancellationException e) {
+					stopped[0] = true;
+					throw e;
+				}
+			}
+		};
+		CompletableFuture<Solution> solution = solver.solve(CONFIG);
+		assertTrue(started.await(1, TimeUnit.MINUTES));
+		solution.cancel(true);
+		cancelled.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		assertTrue(stopped[0]);
+		try {
+			solution.get();
+			fail("The input file is cancelled");
+		}
+		catch (CancellationException e) {
+			assertTrue(solution.isCancelled());
+		}
+		// the room is free again
+		assertEquals(0, solver.getInFlightCount());
+	}
+
+	@Test
+	public void malformedInputFileCompletesWithItsError() throws Exception {
+		HeldExecutor executor = new HeldExecutor();
+		CompletableFuture<Solution> solution = new AsyncSolver(executor, 1, false).solve("S\n2 2\n1 2\n");
+		executor.runAll();
+		try {
+			solution.get();
+			fail("The input file is malformed");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof CylindricalMatrixInputParserException);
+		}
+	}
+
+	/**
+	 * Keeps the tasks until the test runs them, on its own thread
+	 */
+	private static class HeldExecutor implements Executor {
+		private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+		public void execute(Runnable task) {
+			tasks.add(task);
+		}
+
+		void runAll() {
+			while (!tasks.isEmpty())
+				tasks.remove(0).run();
+		}
+	}
+}
@@ -1,17 +1,24 @@
 package com.solium.cylindricalMatrix.parser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
 
 import com.solium.cylindricalMatrix.Edge;
 import com.solium.cylindricalMatrix.Graph;
+import com.solium.cylindricalMatrix.GridGraph;
 import com.solium.cylindricalMatrix.Node;
+import com.solium.cylindricalMatrix.StreamingColumnSweepSolver;
 import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
 import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException;
 
@@ -50,6 +57,47 @@ public class CylindricalMatrixInputParserTest {
         new CylindricalMatrixInputParser().buildGraph(new StringReader(config));
     }
     
+    @Test (expected = CylindricalMatrixInputParserException.class)
+    public void shouldNotAllowSourceOutsideTheMatrix() throws IOException, CylindricalMatrixInputParserException {
+        String config = "B1\n3 4 1,5 3,4\n3 4 1 2\n6 1 8 2\n5 9 3 9";
+        new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+    }
+    
+    @Test (expected = CylindricalMatrixInputParserException.class)
+    public void shouldNotAllowDestinationOutsideTheMatrix() throws IOException, CylindricalMatrixInputParserException {
+        String config = "B2\n3 4 1,1 4,1\n3 4 1 2\n6 1 8 2\n5 9 3 9";
+        new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+    }
+    
+    @Test (expected = CylindricalMatrixInputParserException.class)
+    public void shouldNotAllowDestinationOutsideTheMatrixOfAGraphOfEdges() throws IOException, CylindricalMatrixInputParserException {
+        String config = "B1\n3 3 1,1 3,4\n3 4 1\n6 1 8\n5 9 3";
+        new CylindricalMatrixInputParser().buildGraph(new StringReader(config));
+    }
+    
+    @Test (expected = CylindricalMatrixInputParserException.class)
+    public void shouldNotAllowSourceOutsideTheMatrixOfAGraphOfEdges() throws IOException, CylindricalMatrixInputParserException {
+        String config = "B2\n3 3 0,1 3,3\n3 4 1\n6 1 8\n5 9 3";
+        new CylindricalMatrixInputParser().buildGraph(new StringReader(config));
+    }
+    
+    @Test (expected = CylindricalMatrixInputParserException.class)
+    public void shouldNotAllowBatchQueriesOutsideTheMatrix() throws IOException, CylindricalMatrixInputParserException {
+        String config = "B1\n2 2\n1 2\n3 4\n1,1 3,1";
+        new CylindricalMatrixInputParser().buildBatchGraph(new StringReader(config));
+    }
+    
+    @Test
+    public void batchQueriesAreRead() throws IOException, CylindricalMatrixInputParserException {
+        String config = "B2\n2 3\n1 2 3\n4 5 6\n1,1 2,3\n\n2,2 1,1\n";
+        CylindricalMatrixInputParser parser = new CylindricalMatrixInputParser();
+        GridGraph graph = parser.buildBatchGraph(new StringReader(config));
+        assertEquals(3, graph.getColumns());
+        assertEquals(2, parser.getQueries().size());
+        assertTrue(Arrays.equals(new int[] {0, 0, 1, 2}, parser.getQueries().get(0)));
+        assertTrue(Arrays.equals(new int[] {1, 1, 0, 0}, parser.getQueries().get(1)));
+    }
+    
     @Test
     public void graphIsBuiltProperly() throws IOException, CylindricalMatrixInputParserException {
 		Node node_1 = new Node(makeNodeId(0,0));
@@ -107,6 +155,114 @@ public class CylindricalMatrixInputParserTest {
 		assertEquals(edges.size(), graph.getEdges().size());
     }
     
+    @Test
+    public void binaryMatrixGivesTheGraphOfTheText() throws IOException, CylindricalMatrixInputParserException {
+    	String[] configs = {
+    			"S\n3 4\n3 4 1 2\n6 1 8 2\n5 9 3 9",
+    			"B1\n3 4 1,1 3,4\n3 4 1 2\n6 1 800 2\n5 9 3 9",
+    			"B2\n3 4 2,2 1,4\n3 -4 1 2\n6 1 80000 2\n5 9 3 9"};
+    	File binary = File.createTempFile("matrix", ".bin");
+    	try {
+    		for (String config : configs) {
+    			new CylindricalMatrixInputParser().convertToBinary(new StringReader(config), binary);
+    			GridGraph expected = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+    			GridGraph graph = new CylindricalMatrixInputParser().buildGridGraph(binary);
+    			assertEquals(expected.getContentHash(), graph.getContentHash());
+    			assertEquals(expected.getMaximumEdgeWeight(), graph.getMaximumEdgeWeight());
+    			assertEquals(expected.lexicographicallySmallestForDisplay(), graph.lexicographicallySmallestForDisplay());
+    			assertEquals(expected.getMinimumWeight(), graph.getMinimumWeight());
+    		}
+    	}
+    	finally {
+    		binary.delete();
+    	}
+    }
+    
+    @Test
+    public void offHeapMatrixGivesTheGraphOfTheArrays() throws IOException, CylindricalMatrixInputParserException {
+    	String[] configs = {
+    			"S\n3 4\n3 4 1 2\n6 1 8 2\n5 9 3 9",
+    			"B2\n3 4 2,2 1,4\n3 -4 1 2\n6 1 80000 2\n5 9 3 9"};
+    	for (String config : configs) {
+    		GridGraph expected = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+    		CylindricalMatrixInputParser parser = new CylindricalMatrixInputParser();
+    		parser.setOffHeap(true);
+    		GridGraph graph = parser.buildGridGraph(new StringReader(config));
+    		assertEquals(expected.getContentHash(), graph.getContentHash());
+    		assertEquals(expected.lexicographicallySmallestForDisplay(), graph.lexicographicallySmallestForDisplay());
+    		assertEquals(expected.getMinimumWeight(), graph.getMinimumWeight());
+    	}
+    }
+    
+    @Test
+    public void parserCanBeReusedForAnotherInputFile() throws IOException, CylindricalMatrixInputParserException {
+    	String[] configs = {
+    			"B1\n3 4 1,1 3,4\n3 4 1 2\n6 1 8 2\n5 9 3 9",
+    			"S\n2 3\n1 2 3\n3 2 1",
+    			"B1\n3 4 1,1 3,4\n3 4 1 2\n6 1 8 2\n5 9 3 9"};
+    	CylindricalMatrixInputParser parser = new CylindricalMatrixInputParser();
+    	for (String config : configs) {
+    		Graph expected = new CylindricalMatrixInputParser().buildGraph(new StringReader(config));
+    		Graph graph = parser.buildGraph(new StringReader(config));
+    		assertEquals(expected.getEdges().size(), graph.getEdges().size());
+    		assertEquals(expected.lexicographicallySmallestForDisplay(), graph.lexicographicallySmallestForDisplay());
+    		assertEquals(expected.getMinimumWeight(), graph.getMinimumWeight());
+    	}
+    }
+    
+    @Test
+    public void columnMajorMatrixIsSolvedLikeTheRows() throws IOException, CylindricalMatrixInputParserException {
+    	GridGraph expected = new CylindricalMatrixInputParser().buildGridGraph(new StringReader("S\n3 4\n3 4 1 2\n6 1 8 2\n5 9 3 9"));
+    	expected.findShortestPathFromSourcesAndDestinations();
+    	File columns = write("S\n3 4\n3 6 5\n4  1 9\n1 8 3\n2 2 9\n");
+    	try {
+    		StreamingColumnSweepSolver solver = new CylindricalMatrixInputParser().solveColumnMajor(columns, null);
+    		assertEquals(expected.getMinimumWeight(), solver.getMinimumWeight());
+    		assertTrue(Arrays.equals(new int[] {0, 1, 0, 0}, solver.getPathRows()));
+    	}
+    	finally {
+    		columns.delete();
+    	}
+    }
+    
+    @Test (expected = CylindricalMatrixInputParserException.class)
+    public void shouldNotAllowMissingColumnInColumnMajorMatrix() throws IOException, CylindricalMatrixInputParserException {
+    	File columns = write("S\n3 4\n3 6 5\n4 1 9\n1 8 3\n");
+    	try {
+    		new CylindricalMatrixInputParser().solveColumnMajor(columns, null);
+    	}
+    	finally {
+    		columns.delete();
+    	}
+    }
+    
+    private File write(String config) throws IOException {
+    	File file = File.createTempFile("matrix", ".txt");
+    	FileOutputStream out = new FileOutputStream(file);
+    	try {
+    		out.write(config.getBytes("US-ASCII"));
+    	}
+    	finally {
+    		out.close();
+    	}
+    	return file;
+    }
+    
+    @Test (expected = CylindricalMatrixInputParserException.class)
+    public void shouldNotAllowTruncatedBinaryMatrix() throws IOException, CylindricalMatrixInputParserException {
+    	File binary = File.createTempFile("matrix", ".bin");
+    	try {
+    		new CylindricalMatrixInputParser().convertToBinary(new StringReader("S\n2 2\n1 2\n3 4"), binary);
+    		RandomAccessFile raf = new RandomAccessFile(binary, "rw");
+    		raf.setLength(raf.length() - 1);
+    		raf.close();
+    		new CylindricalMatrixInputParser().buildGridGraph(binary);
+    	}
+    	finally {
+    		binary.delete();
+    	}
+    }
+    
 	private String makeNodeId(int row, int col) {
 		return Integer.toString(row+1) + "," + Integer.toString(col+1);
 	}
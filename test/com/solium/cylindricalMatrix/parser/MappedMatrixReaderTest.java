@@ -0,0 +1,105 @@
+package com.solium.cylindricalMatrix.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.GridGraph;
+
+/**
+ * Tests an input file mapped in memory gives the graph, or the error, of the same file read with a Reader
+ */
+public class MappedMatrixReaderTest {
+
+	private File file;
+
+	@After
+	public void deleteFile() {
+		if (file != null)
+			file.delete();
+	}
+
+	@Test
+	public void largeFileGivesTheGraphOfTheReader() throws Exception {
+		Random random = new Random(5);
+		StringBuilder config = new StringBuilder("B2\r\n700 800 1,1 700,800\r\n");
+		for (int row = 0; row < 700; row++) {
+			for (int col = 0; col < 800; col++) {
+				if (col > 0)
+					config.append(' ');
+				config.append(random.nextInt(1000));
+			}
+			config.append(row % 2 == 0 ? "\r\n" : "\n");
+		}
+		assertSameGraph(config.toString(), 4);
+	}
+
+	@Test
+	public void smallFilesGiveTheGraphOfTheReader() throws Exception {
+		assertSameGraph("S\n3 4\n3 4 1 2\n6 1 8 2\n5 9 3 9", 2);
+		assertSameGraph("S\r3 4\r3  4 1 2  \r6 1 8 2\r5 9 3 +9\r\rextra", 2);
+		assertSameGraph("B1\n2 2 1,1 2,2\n1 2\n3 4\n", 1);
+	}
+
+	@Test
+	public void malformedFilesGiveTheErrorOfTheReader() throws Exception {
+		assertSameError("S\n3 4\n3 4 1 2\n6 1 8\n5 9 3 9");
+		assertSameError("S\n3 4\n3 4 1 2\n6 1 8 2\n");
+		assertSameError("S\n3 4\n3 4 1 x\n6 1 8\n");
+		assertSameError("B1\n2 2 1,1 2,2\n1  2\n3 4");
+		assertSameError("B3\n2 2\n1 2\n3 4");
+	}
+
+	private void assertSameGraph(String config, int parallelism) throws Exception {
+		GridGraph expected = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+		CylindricalMatrixInputParser parser = new CylindricalMatrixInputParser();
+		parser.setParallelism(parallelism);
+		GridGraph graph = parser.buildGridGraph(write(config));
+		assertEquals(expected.getRows(), graph.getRows());
+		assertEquals(expected.getColumns(), graph.getColumns());
+		assertEquals(expected.getContentHash(), graph.getContentHash());
+		assertEquals(expected.getMaximumEdgeWeight(), graph.getMaximumEdgeWeight());
+		assertEquals(expected.lexicographicallySmallestForDisplay(), graph.lexicographicallySmallestForDisplay());
+		assertEquals(expected.getMinimumWeight(), graph.getMinimumWeight());
+	}
+
+	private void assertSameError(String config) throws IOException {
+		assertEquals(error(config, false), error(config, true));
+	}
+
+	private String error(String config, boolean mapped) throws IOException {
+		try {
+			if (mapped)
+				new CylindricalMatrixInputParser().buildGridGraph(write(config));
+			else
+				new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+			return "no error";
+		}
+		catch (CylindricalMatrixInputParserException e) {
+			return e.getMessage();
+		}
+		catch (NumberFormatException e) {
+			return e.getMessage();
+		}
+	}
+
+	private File write(String config) throws IOException {
+		if (file == null)
+			file = File.createTempFile("matrix", ".txt");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(config.getBytes("US-ASCII"));
+		}
+		finally {
+			out.close();
+		}
+		return file;
+	}
+}
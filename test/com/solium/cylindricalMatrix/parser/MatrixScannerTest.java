@@ -0,0 +1,86 @@
+package com.solium.cylindricalMatrix.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests MatrixScanner reads the lines like BufferedReader, and only parses the rows String.split would accept
+ * with the same weights
+ */
+public class MatrixScannerTest {
+
+	@Test
+	public void linesEndLikeForReadLine() throws IOException {
+		MatrixScanner scanner = new MatrixScanner(new StringReader("a\r\nb\rc\n\nd"));
+		assertEquals("a", scanner.readLine());
+		assertEquals("b", scanner.readLine());
+		assertEquals("c", scanner.readLine());
+		assertEquals("", scanner.readLine());
+		assertEquals("d", scanner.readLine());
+		assertNull(scanner.readLine());
+	}
+
+	@Test
+	public void plainRowsAreParsed() throws IOException {
+		MatrixScanner scanner = new MatrixScanner(new StringReader("3 -4 +1 2147483647  \n-2147483648   0"));
+		int[] row = new int[4];
+		assertTrue(scanner.nextLine());
+		assertTrue(scanner.parseRow(row, false));
+		assertTrue(Arrays.equals(new int[] {3, -4, 1, Integer.MAX_VALUE}, row));
+		row = new int[2];
+		assertTrue(scanner.nextLine());
+		assertFalse(scanner.parseRow(row, false));
+		assertTrue(scanner.parseRow(row, true));
+		assertTrue(Arrays.equals(new int[] {Integer.MIN_VALUE, 0}, row));
+	}
+
+	@Test
+	public void parsedRowsAreTheRowsOfSplit() throws IOException {
+		Random random = new Random(3);
+		String alphabet = "0129  -+x";
+		for (int i = 0; i < 20000; i++) {
+			StringBuilder line = new StringBuilder();
+			int length = random.nextInt(9);
+			for (int j = 0; j < length; j++)
+				line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (random.nextInt(10) == 0)
+				line.append("2147483648");
+			for (int cols = 0; cols < 4; cols++) {
+				for (boolean loose : new boolean[] {false, true}) {
+					MatrixScanner scanner = new MatrixScanner(new StringReader(line.toString()));
+					scanner.nextLine();
+					int[] row = new int[cols];
+					if (scanner.parseRow(row, loose))
+						assertEquals(line + " " + cols, Arrays.toString(split(line.toString(), cols, loose)), Arrays.toString(row));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the weights of the row read as before the scanner, null if it is not a row of cols weights
+	 */
+	private int[] split(String line, int cols, boolean loose) {
+		String[] tokens = line.split(loose ? "[ ]+" : " ");
+		if (tokens.length != cols)
+			return null;
+		int[] row = new int[cols];
+		try {
+			for (int col = 0; col < cols; col++)
+				row[col] = Integer.parseInt(tokens[col]);
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+		return row;
+	}
+}
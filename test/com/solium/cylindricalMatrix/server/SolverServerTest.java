@@ -0,0 +1,87 @@
+package com.solium.cylindricalMatrix.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.server.SolverServer;
+
+/**
+ * Tests the server gives the answers of the program, for input files sent once and for loaded matrices
+ */
+public class SolverServerTest {
+
+	private static final String STANDARD = "S\n5 6\n3 4 1 2 8 6\n6 1 8 2 7 4\n5 9 3 9 9 5\n8 4 1 3 2 6\n3 7 2 8 6 4";
+	private static final String BONUS1 = "B1\n3 3 2,1 2,3\n1 1 1\n0 1 0\n1 1 1";
+
+	private SolverServer server;
+
+	@Before
+	public void startServer() throws IOException {
+		server = new SolverServer(0, 8);
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop();
+	}
+
+	@Test
+	public void inputFileIsSolved() throws IOException {
+		assertEquals("200 (1,1) (2,2) (3,3) (4,4) (4,5) (5,6)\n16\n", send("POST", "/solve", STANDARD));
+	}
+
+	@Test
+	public void loadedMatrixIsAnsweredAndQueried() throws IOException {
+		assertEquals("200 3 3\n", send("PUT", "/matrices/grid", BONUS1));
+		assertEquals("200 (2,1) (1,2) (2,3)\n1\n", send("GET", "/matrices/grid", null));
+		assertEquals("200 (2,1) (2,2)\n1\n", send("GET", "/matrices/grid?from=2,1&to=2,2", null));
+		assertEquals("200 grid\n", send("DELETE", "/matrices/grid", null));
+		assertEquals("404 No matrix grid", send("GET", "/matrices/grid", null));
+	}
+
+	@Test
+	public void malformedInputFileIsRejected() throws IOException {
+		assertEquals("400 Invalid number of rows", send("POST", "/solve", "S\n2 2\n1 2"));
+		send("PUT", "/matrices/grid", BONUS1);
+		assertEquals("400 Query coordinates outside the matrix 4,1", send("GET", "/matrices/grid?from=4,1&to=1,1", null));
+	}
+
+	/**
+	 * @return the status and the body of the answer
+	 */
+	private String send(String method, String path, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+		try {
+			connection.setRequestMethod(method);
+			if (body != null) {
+				connection.setDoOutput(true);
+				OutputStream out = connection.getOutputStream();
+				out.write(body.getBytes("US-ASCII"));
+				out.close();
+			}
+			int status = connection.getResponseCode();
+			InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream();
+			ByteArrayOutputStream answer = new ByteArrayOutputStream();
+			byte[] buffer = new byte[256];
+			int count;
+			while ((count = in.read(buffer)) > 0)
+				answer.write(buffer, 0, count);
+			in.close();
+			return status + " " + answer.toString("US-ASCII");
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+}
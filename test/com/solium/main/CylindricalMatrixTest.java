@@ -1,6 +1,8 @@
 package com.solium.main;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.StringReader;
@@ -123,4 +125,25 @@ public class CylindricalMatrixTest {
 		bonuse3Graph.findShortestPathFromSourcesAndDestinations();
 		assertEquals(0, bonuse3Graph.getMinimumWeight());
 	}
+	
+	@Test
+	public void testCase5() throws IOException, CylindricalMatrixInputParserException { //Standard - grid graph without edges
+        String config = "S\n5 6\n3 4 1 2 8 6\n6 1 8 2 7 4\n5 9 3 9 9 5\n8 4 1 3 2 6\n3 7 2 8 6 4";
+
+		Graph standardGraph = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+		assertEquals("(1,1) (2,2) (3,3) (4,4) (4,5) (5,6)", standardGraph.lexicographicallySmallestForDisplay());
+		assertEquals(16, standardGraph.getMinimumWeight());
+		assertEquals(0, standardGraph.getEdges().size());
+	}
+	
+	@Test
+	public void testCase6() { //mode flags with the wrong number of arguments are not read as input file names
+		assertFalse(CylindricalMatrix.hasArgumentCount(new String[] {"-batch", "input/batch.txt", "extra"}));
+		assertFalse(CylindricalMatrix.hasArgumentCount(new String[] {"-pipeline", "4", "x"}));
+		assertFalse(CylindricalMatrix.hasArgumentCount(new String[] {"-deadline", "input/input.txt"}));
+		assertFalse(CylindricalMatrix.hasArgumentCount(new String[] {"-dir"}));
+		assertTrue(CylindricalMatrix.hasArgumentCount(new String[] {"-pipeline"}));
+		assertTrue(CylindricalMatrix.hasArgumentCount(new String[] {"-server", "8080", "16"}));
+		assertTrue(CylindricalMatrix.hasArgumentCount(new String[] {"input/input.txt"}));
+	}
 }
@@ -0,0 +1,113 @@
+package com.solium.main;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException;
+
+/**
+ * Tests the runner answers the input files of a directory like the program answers each one, in the order of
+ * their names
+ */
+public class DirectoryRunnerTest {
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("inputs", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void deleteDirectory() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files)
+				file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void answersAreWrittenInTheOrderOfTheInputFiles() throws Exception {
+		Random random = new Random(23);
+		StringBuilder expected = new StringBuilder();
+		String[] headers = {"S", "B1", "B2"};
+		for (int i = 0; i < 40; i++) {
+			// large and small input files mixed, so that they are not solved in the order of their names
+			int rows = 1 + random.nextInt(i % 7 == 0 ? 60 : 5);
+			int cols = 1 + random.nextInt(i % 7 == 0 ? 60 : 5);
+			String header = headers[i % 3];
+			StringBuilder config = new StringBuilder(header).append('\n').append(rows).append(' ').append(cols);
+			if (!"S".equals(header))
+				config.append(" 1,1 ").append(rows).append(',').append(cols);
+			for (int row = 0; row < rows; row++) {
+				config.append('\n');
+				for (int col = 0; col < cols; col++)
+					config.append(col > 0 ? " " : "").append(random.nextInt(10));
+			}
+			File input = new File(directory, "input" + (100 + i) + ".txt");
+			write(input, config.toString());
+			expected.append(input.getPath()).append('\n').append(answer(config.toString()));
+		}
+		write(new File(directory, "notes.md"), "not an input file");
+
+		List<File> inputs = DirectoryRunner.listInputFiles(new File(directory, "*.txt").getPath());
+		StringWriter output = new StringWriter();
+		assertEquals(40, new DirectoryRunner(3).run(inputs, output));
+		assertEquals(expected.toString() + "40 input files", withoutTimes(output.toString()));
+	}
+
+	@Test
+	public void malformedInputFileIsAnsweredByItsError() throws IOException {
+		write(new File(directory, "a.txt"), "S\n1 2\n1 2\n");
+		write(new File(directory, "b.txt"), "S\n2 2\n1 2\n");
+		write(new File(directory, "c.txt"), "S\n1 1\n5\n");
+		List<File> inputs = DirectoryRunner.listInputFiles(directory.getPath());
+		StringWriter output = new StringWriter();
+		assertEquals(3, new DirectoryRunner(2).run(inputs, output));
+		String a = new File(directory, "a.txt").getPath();
+		String b = new File(directory, "b.txt").getPath();
+		String c = new File(directory, "c.txt").getPath();
+		assertEquals(a + "\n(1,1) (1,2)\n3\n" + b + "\nInvalid number of rows\n" + c + "\n(1,1)\n5\n3 input files",
+				withoutTimes(output.toString()));
+	}
+
+	/**
+	 * @param output
+	 * @return the output without the times, which change from run to run
+	 */
+	private String withoutTimes(String output) {
+		return output.replaceAll(" [0-9]+ us\n", "\n").replaceAll(" in [0-9]+ ms\n$", "");
+	}
+
+	private void write(File file, String text) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes("US-ASCII"));
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private String answer(String config) throws IOException, CylindricalMatrixInputParserException {
+		GridGraph graph = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+		return graph.lexicographicallySmallestForDisplay() + "\n" + graph.getMinimumWeight() + "\n";
+	}
+}
@@ -0,0 +1,60 @@
+package com.solium.main;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.solium.cylindricalMatrix.GridGraph;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParser;
+import com.solium.cylindricalMatrix.parser.CylindricalMatrixInputParserException;
+
+/**
+ * Tests the pipeline answers a stream of input files like the program answers each one, in the order of the stream
+ */
+public class SolverPipelineTest {
+
+	@Test
+	public void answersAreWrittenInTheOrderOfTheInputFiles() throws Exception {
+		Random random = new Random(17);
+		StringBuilder stream = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		String[] headers = {"S", "B1", "B2"};
+		for (int i = 0; i < 60; i++) {
+			// large and small input files mixed, so that they are not solved in the order of the stream
+			int rows = 1 + random.nextInt(i % 7 == 0 ? 60 : 5);
+			int cols = 1 + random.nextInt(i % 7 == 0 ? 60 : 5);
+			String header = headers[i % 3];
+			StringBuilder config = new StringBuilder(header).append('\n').append(rows).append(' ').append(cols);
+			if (!"S".equals(header))
+				config.append(" 1,1 ").append(rows).append(',').append(cols);
+			for (int row = 0; row < rows; row++) {
+				config.append('\n');
+				for (int col = 0; col < cols; col++)
+					config.append(col > 0 ? " " : "").append(random.nextInt(10));
+			}
+			stream.append(config).append(i % 2 == 0 ? "\n\n" : "\n");
+			expected.append(answer(config.toString()));
+		}
+		StringWriter output = new StringWriter();
+		assertEquals(60, new SolverPipeline(4, 3).run(new StringReader(stream.toString()), output));
+		assertEquals(expected.toString(), output.toString());
+	}
+
+	@Test
+	public void malformedInputFileEndsTheStream() throws IOException {
+		String stream = "S\n1 2\n1 2\nS\n2 2\n1 2\n3\nS\n1 1\n5\n";
+		StringWriter output = new StringWriter();
+		assertEquals(2, new SolverPipeline(2, 1).run(new StringReader(stream), output));
+		assertEquals("(1,1) (1,2)\n3\nInvalid number of columns\n", output.toString());
+	}
+
+	private String answer(String config) throws IOException, CylindricalMatrixInputParserException {
+		GridGraph graph = new CylindricalMatrixInputParser().buildGridGraph(new StringReader(config));
+		return graph.lexicographicallySmallestForDisplay() + "\n" + graph.getMinimumWeight() + "\n";
+	}
+}